@@ -0,0 +1,47 @@
+
+// This is a separate Gradle build, rather than a source set in the main build, so that the JMH
+// plugin and its dependencies never become part of the published library's build logic. Run it
+// with "make benchmark" from this directory (or "../gradlew jmh").
+
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+repositories {
+    mavenLocal()
+    mavenCentral()
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    // Substituted with the parent project by includeBuild() in settings.gradle.kts
+    jmh("com.launchdarkly:launchdarkly-java-sdk-common")
+
+    // The library does not expose Gson as a dependency (see Dependencies.kt in buildSrc of the
+    // parent project), so we have to provide it here, just as an SDK would.
+    jmh("com.google.code.gson:gson:2.8.9")
+}
+
+jmh {
+    iterations.set(5)
+    warmupIterations.set(3)
+    fork.set(1)
+    benchmarkMode.set(listOf("avgt"))
+    timeUnit.set("ns")
+    // The "gc" profiler reports gc.alloc.rate.norm (bytes allocated per operation), which is
+    // as important as the timing results for most of the code paths being measured here.
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    resultsFile.set(project.file("${project.buildDir}/reports/jmh/results.json"))
+    humanOutputFile.set(project.file("${project.buildDir}/reports/jmh/human.txt"))
+
+    // Allows running a subset, e.g.: ../gradlew jmh -Pbenchmarks=LDValueBenchmarks
+    if (project.hasProperty("benchmarks")) {
+        includes.set(listOf(project.property("benchmarks").toString()))
+    }
+}
@@ -0,0 +1,5 @@
+rootProject.name = "launchdarkly-java-sdk-common-benchmarks"
+
+// Resolve the SDK common library from the parent project's sources rather than from a
+// published artifact, so the benchmarks always measure the code in this working copy.
+includeBuild("..")
@@ -0,0 +1,75 @@
+package com.launchdarkly.sdk;
+
+import com.launchdarkly.sdk.json.JsonSerialization;
+import com.launchdarkly.sdk.json.RedactingContextSerializer;
+import com.launchdarkly.sdk.json.SerializationException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import static java.util.Arrays.asList;
+
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmarks {
+  private EvaluationDetail<LDValue> detailRuleMatch = TestValues.DETAIL_RULE_MATCH;
+  private EvaluationDetail<LDValue> detailSimple = TestValues.DETAIL_SIMPLE;
+  private LDContext multiContext = TestValues.MULTI_CONTEXT;
+  private String multiContextJson = TestValues.MULTI_CONTEXT_JSON;
+  private String oldUserJson = TestValues.OLD_USER_JSON;
+  private LDContext userContext = TestValues.USER_CONTEXT;
+  private String userContextJson = TestValues.USER_CONTEXT_JSON;
+
+  private RedactingContextSerializer redactingSerializer = new RedactingContextSerializer(false,
+      asList(AttributeRef.fromLiteral("country")));
+
+  @Benchmark
+  public LDContext deserializeSingleContext() throws SerializationException {
+    return JsonSerialization.deserialize(userContextJson, LDContext.class);
+  }
+
+  @Benchmark
+  public LDContext deserializeMultiContext() throws SerializationException {
+    return JsonSerialization.deserialize(multiContextJson, LDContext.class);
+  }
+
+  @Benchmark
+  public LDContext deserializeOldUserAsContext() throws SerializationException {
+    return JsonSerialization.deserialize(oldUserJson, LDContext.class);
+  }
+
+  @Benchmark
+  public String serializeSingleContext() {
+    return JsonSerialization.serialize(userContext);
+  }
+
+  @Benchmark
+  public String serializeMultiContext() {
+    return JsonSerialization.serialize(multiContext);
+  }
+
+  @Benchmark
+  public String serializeSingleContextRedacted() {
+    return redactingSerializer.serialize(userContext);
+  }
+
+  @Benchmark
+  public String serializeMultiContextRedacted() {
+    return redactingSerializer.serialize(multiContext);
+  }
+
+  @Benchmark
+  public String serializeEvaluationDetailSimple() {
+    return JsonSerialization.serialize(detailSimple);
+  }
+
+  @Benchmark
+  public String serializeEvaluationDetailRuleMatch() {
+    return JsonSerialization.serialize(detailRuleMatch);
+  }
+
+  @Benchmark
+  public String serializeEvaluationReason() {
+    return JsonSerialization.serialize(detailRuleMatch.getReason());
+  }
+}
@@ -0,0 +1,105 @@
+package com.launchdarkly.sdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class LDContextBenchmarks {
+  private LDContext deviceContext = TestValues.DEVICE_CONTEXT;
+  private LDContext multiContext = TestValues.MULTI_CONTEXT;
+  private LDContext orgContext = TestValues.ORG_CONTEXT;
+  private ContextKind orgKind = TestValues.ORG_KIND;
+  private AttributeRef refCustom = TestValues.REF_CUSTOM;
+  private AttributeRef refKey = TestValues.REF_KEY;
+  private AttributeRef refMissing = TestValues.REF_MISSING;
+  private AttributeRef refName = TestValues.REF_NAME;
+  private AttributeRef refNested = TestValues.REF_NESTED;
+  private LDContext userContext = TestValues.USER_CONTEXT;
+
+  @Benchmark
+  public LDValue getValueBuiltIn() {
+    return userContext.getValue(refKey);
+  }
+
+  @Benchmark
+  public LDValue getValueName() {
+    return userContext.getValue(refName);
+  }
+
+  @Benchmark
+  public LDValue getValueCustom() {
+    return userContext.getValue(refCustom);
+  }
+
+  @Benchmark
+  public LDValue getValueNested() {
+    return userContext.getValue(refNested);
+  }
+
+  @Benchmark
+  public LDValue getValueMissing() {
+    return userContext.getValue(refMissing);
+  }
+
+  @Benchmark
+  public AttributeRef parseAttributeRefPath() {
+    return AttributeRef.fromPath("/address/street");
+  }
+
+  @Benchmark
+  public AttributeRef parseAttributeRefLiteral() {
+    return AttributeRef.fromLiteral("organization");
+  }
+
+  @Benchmark
+  public LDContext buildSimple() {
+    return LDContext.create("user-key-123abc");
+  }
+
+  @Benchmark
+  public LDContext buildWithKind() {
+    return LDContext.create(orgKind, "org-key-456def");
+  }
+
+  @Benchmark
+  public LDContext buildWithAttributes() {
+    return LDContext.builder("user-key-123abc")
+        .name("Sandy")
+        .set("email", "sandy@example.com")
+        .set("country", "us")
+        .set("age", 42)
+        .privateAttributes("email")
+        .build();
+  }
+
+  @Benchmark
+  public LDContext buildMulti() {
+    return LDContext.createMulti(userContext, orgContext, deviceContext);
+  }
+
+  @Benchmark
+  public LDContext getIndividualContextByKind() {
+    return multiContext.getIndividualContext(orgKind);
+  }
+
+  @Benchmark
+  public LDContext getIndividualContextByString() {
+    return multiContext.getIndividualContext("org");
+  }
+
+  @Benchmark
+  public String getFullyQualifiedKey() {
+    return multiContext.getFullyQualifiedKey();
+  }
+
+  @Benchmark
+  public int hashCodeSingle() {
+    return userContext.hashCode();
+  }
+
+  @Benchmark
+  public int hashCodeMulti() {
+    return multiContext.hashCode();
+  }
+}
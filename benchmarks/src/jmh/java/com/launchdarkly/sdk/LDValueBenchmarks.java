@@ -0,0 +1,115 @@
+package com.launchdarkly.sdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class LDValueBenchmarks {
+  private String intArrayJson = TestValues.INT_ARRAY_JSON;
+  private LDValue largeObject = TestValues.LARGE_OBJECT;
+  private LDValue largeObjectCopy = TestValues.LARGE_OBJECT_COPY;
+  private String largeObjectJson = TestValues.LARGE_OBJECT_JSON;
+  private LDValue smallObject = TestValues.SMALL_OBJECT;
+  private LDValue smallObjectCopy = TestValues.SMALL_OBJECT_COPY;
+  private String smallObjectJson = TestValues.SMALL_OBJECT_JSON;
+
+  private LDValue objectContainingLargeObject = LDValue.buildObject()
+      .put("value", largeObject).build();
+
+  @Benchmark
+  public LDValue parseSmallObject() {
+    return LDValue.parse(smallObjectJson);
+  }
+
+  @Benchmark
+  public LDValue parseLargeObject() {
+    return LDValue.parse(largeObjectJson);
+  }
+
+  @Benchmark
+  public LDValue parseIntArray() {
+    return LDValue.parse(intArrayJson);
+  }
+
+  @Benchmark
+  public String serializeSmallObject() {
+    return smallObject.toJsonString();
+  }
+
+  @Benchmark
+  public String serializeLargeObject() {
+    return largeObject.toJsonString();
+  }
+
+  @Benchmark
+  public String serializeObjectContainingLargeObject() {
+    return objectContainingLargeObject.toJsonString();
+  }
+
+  @Benchmark
+  public LDValue withPropertyLargeObject() {
+    return largeObject.with("prop1", smallObject);
+  }
+
+  @Benchmark
+  public LDValue withoutPropertyLargeObject() {
+    return largeObject.without("prop1");
+  }
+
+  @Benchmark
+  public boolean equalsSmallObject() {
+    return smallObject.equals(smallObjectCopy);
+  }
+
+  @Benchmark
+  public boolean equalsLargeObject() {
+    return largeObject.equals(largeObjectCopy);
+  }
+
+  @Benchmark
+  public int hashCodeSmallObject() {
+    return smallObject.hashCode();
+  }
+
+  @Benchmark
+  public int hashCodeLargeObject() {
+    return largeObject.hashCode();
+  }
+
+  @Benchmark
+  public LDValue createInt() {
+    return LDValue.of(7);
+  }
+
+  @Benchmark
+  public LDValue createIntFromDouble() {
+    return LDValue.of(7.0d);
+  }
+
+  @Benchmark
+  public LDValue createLong() {
+    return LDValue.of(1700000000000L);
+  }
+
+  @Benchmark
+  public LDValue createString() {
+    return LDValue.of("value");
+  }
+
+  @Benchmark
+  public LDValue createDistinctStrings(DistinctStrings strings) {
+    return LDValue.of(strings.next());
+  }
+
+  @State(Scope.Thread)
+  public static class DistinctStrings {
+    private String[] values = TestValues.DISTINCT_STRINGS;
+    private int i;
+
+    String next() {
+      i = (i + 1) & (values.length - 1);
+      return values[i];
+    }
+  }
+}
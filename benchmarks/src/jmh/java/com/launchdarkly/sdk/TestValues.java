@@ -0,0 +1,126 @@
+package com.launchdarkly.sdk;
+
+import com.launchdarkly.sdk.json.JsonSerialization;
+
+/**
+ * Shared input data for the benchmarks. These are built once per JMH fork so that the benchmark
+ * methods only measure the operation under test. Benchmarks should copy them into non-final fields
+ * of a {@code @State} object rather than reading these constants directly; otherwise the JIT can
+ * treat the inputs as constants and fold away some of the work being measured.
+ */
+public abstract class TestValues {
+  private TestValues() {}
+
+  public static final String SMALL_OBJECT_JSON =
+      "{\"a\":1,\"b\":\"two\",\"c\":true,\"d\":null}";
+
+  public static final String LARGE_OBJECT_JSON = makeLargeObjectJson(100);
+
+  public static final String INT_ARRAY_JSON = makeIntArrayJson(100);
+
+  public static final LDValue SMALL_OBJECT = LDValue.parse(SMALL_OBJECT_JSON);
+  public static final LDValue SMALL_OBJECT_COPY = LDValue.parse(SMALL_OBJECT_JSON);
+  public static final LDValue LARGE_OBJECT = LDValue.parse(LARGE_OBJECT_JSON);
+  public static final LDValue LARGE_OBJECT_COPY = LDValue.parse(LARGE_OBJECT_JSON);
+
+  public static final ContextKind ORG_KIND = ContextKind.of("org");
+  public static final ContextKind DEVICE_KIND = ContextKind.of("device");
+
+  public static final LDContext USER_CONTEXT = LDContext.builder("user-key-123abc")
+      .name("Sandy")
+      .set("email", "sandy@example.com")
+      .set("country", "us")
+      .set("groups", LDValue.arrayOf(LDValue.of("admins"), LDValue.of("beta")))
+      .set("address", LDValue.buildObject()
+          .put("street", "123 Main St.")
+          .put("city", "Springfield")
+          .build())
+      .privateAttributes("email", "/address/street")
+      .build();
+
+  public static final LDContext ORG_CONTEXT = LDContext.builder(ORG_KIND, "org-key-456def")
+      .name("Acme")
+      .set("plan", "enterprise")
+      .set("seats", 250)
+      .build();
+
+  public static final LDContext DEVICE_CONTEXT = LDContext.builder(DEVICE_KIND, "device-key-789ghi")
+      .set("os", "android")
+      .set("version", 33)
+      .build();
+
+  public static final LDContext MULTI_CONTEXT =
+      LDContext.createMulti(USER_CONTEXT, ORG_CONTEXT, DEVICE_CONTEXT);
+
+  public static final String USER_CONTEXT_JSON = JsonSerialization.serialize(USER_CONTEXT);
+  public static final String MULTI_CONTEXT_JSON = JsonSerialization.serialize(MULTI_CONTEXT);
+
+  @SuppressWarnings("deprecation")
+  public static final String OLD_USER_JSON = JsonSerialization.serialize(
+      new LDUser.Builder("user-key-123abc")
+        .name("Sandy")
+        .email("sandy@example.com")
+        .country("us")
+        .custom("groups", LDValue.arrayOf(LDValue.of("admins"), LDValue.of("beta")))
+        .privateEmail("sandy@example.com")
+        .build());
+
+  public static final AttributeRef REF_KEY = AttributeRef.fromLiteral("key");
+  public static final AttributeRef REF_NAME = AttributeRef.fromLiteral("name");
+  public static final AttributeRef REF_CUSTOM = AttributeRef.fromLiteral("country");
+  public static final AttributeRef REF_NESTED = AttributeRef.fromPath("/address/city");
+  public static final AttributeRef REF_MISSING = AttributeRef.fromLiteral("no-such-attribute");
+
+  public static final EvaluationDetail<LDValue> DETAIL_SIMPLE =
+      EvaluationDetail.fromValue(LDValue.of(true), 1, EvaluationReason.fallthrough());
+  public static final EvaluationDetail<LDValue> DETAIL_RULE_MATCH =
+      EvaluationDetail.fromValue(SMALL_OBJECT, 2, EvaluationReason.ruleMatch(3, "rule-id-abc"));
+
+  // Many short strings that each occur only once, like user keys, so that a cache of recently
+  // seen strings mostly misses
+  public static final String[] DISTINCT_STRINGS = makeDistinctStrings(4096);
+
+  private static String[] makeDistinctStrings(int count) {
+    String[] ret = new String[count];
+    for (int i = 0; i < count; i++) {
+      ret[i] = "key-" + i;
+    }
+    return ret;
+  }
+
+  // Mostly small integers, like the variation indexes and counters in typical flag and event data
+  private static String makeIntArrayJson(int size) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(i % 10 == 9 ? 1700000000000L + i : i % 5);
+    }
+    return sb.append(']').toString();
+  }
+
+  private static String makeLargeObjectJson(int size) {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("\"prop").append(i).append("\":");
+      switch (i % 4) {
+      case 0:
+        sb.append(i);
+        break;
+      case 1:
+        sb.append("\"value").append(i).append('"');
+        break;
+      case 2:
+        sb.append("[1,2.5,\"x\",false]");
+        break;
+      default:
+        sb.append("{\"nested\":").append(i).append(",\"s\":\"t\"}");
+      }
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -9,8 +9,7 @@ import java.util.List;
  * Builder methods are not thread-safe.
  */
 public final class ArrayBuilder {
-  private List<LDValue> builder = new ArrayList<>();
-  private volatile boolean copyOnWrite = false;
+  private final List<LDValue> builder = new ArrayList<>();
   
   /**
    * Adds a new element to the builder.
@@ -18,10 +17,6 @@ public final class ArrayBuilder {
    * @return the same builder
    */
   public ArrayBuilder add(LDValue value) {
-    if (copyOnWrite) {
-  	  builder = new ArrayList<>(builder);
-  	  copyOnWrite = false;
-  	}
     builder.add(value == null ? LDValue.ofNull() : value);
     return this;
   }
@@ -82,12 +77,13 @@ public final class ArrayBuilder {
 
   /**
    * Returns an array containing the builder's current elements. Subsequent changes to the builder
-   * will not affect this value (it uses copy-on-write logic, so the previous values will only be
-   * copied to a new list if you continue to add elements after calling {@link #build()}.
+   * will not affect this value.
+   * <p>
+   * To derive a modified copy of an existing array without rebuilding it, use
+   * {@link LDValue#withIndex(int, LDValue)}.
    * @return an {@link LDValue} that is an array
    */
   public LDValue build() {
-    copyOnWrite = true;
     return LDValueArray.fromList(builder);
   }
 }
@@ -38,16 +38,33 @@ public final class AttributeRef implements JsonSerializable, Comparable<Attribut
       "email", "firstName", "lastName", "country", "ip", "avatar" // frequently used custom attributes
       );
   
+  // Recently created instances, so that parsing the same string again returns the same instance
+  // without any work; see AttributeRefCache. fromPath and fromLiteral need separate caches because
+  // they interpret strings with a leading slash differently.
+  static final AttributeRefCache PATH_CACHE = new AttributeRefCache(AttributeRefCache.DEFAULT_SIZE);
+  static final AttributeRefCache LITERAL_CACHE = new AttributeRefCache(AttributeRefCache.DEFAULT_SIZE);
+  
+  // Values for builtInAttribute. We determine this once when the AttributeRef is created, so that
+  // LDContext.getValue(AttributeRef) doesn't have to compare strings every time to find out whether
+  // the first path component is a built-in attribute.
+  static final int CUSTOM_ATTRIBUTE = 0;
+  static final int KIND_ATTRIBUTE = 1;
+  static final int KEY_ATTRIBUTE = 2;
+  static final int NAME_ATTRIBUTE = 3;
+  static final int ANONYMOUS_ATTRIBUTE = 4;
+  
   private final String error;
   private final String rawPath;
   private final String singlePathComponent;
   private final String[] components;
+  final int builtInAttribute;
   
   private AttributeRef(String rawPath, String singlePathComponent, String[] components) {
     this.error = null;
     this.rawPath = rawPath == null ? "" : rawPath;
     this.singlePathComponent = singlePathComponent;
     this.components = components;
+    this.builtInAttribute = builtInAttributeFor(components == null ? singlePathComponent : components[0]);
   }
   
   private AttributeRef(String error, String rawPath) {
@@ -55,6 +72,7 @@ public final class AttributeRef implements JsonSerializable, Comparable<Attribut
     this.rawPath = rawPath == null ? "" : rawPath;
     this.singlePathComponent = null;
     this.components = null;
+    this.builtInAttribute = CUSTOM_ATTRIBUTE;
   }
   
   /**
@@ -72,12 +90,25 @@ public final class AttributeRef implements JsonSerializable, Comparable<Attribut
    * @see #fromLiteral(String)
    */
   public static AttributeRef fromPath(String refPath) {
-    if (refPath == null || refPath.isEmpty() || refPath.equals("/")) {
+    if (refPath == null || refPath.isEmpty()) {
+      return new AttributeRef(Errors.ATTR_EMPTY, refPath);
+    }
+    AttributeRef ret = PATH_CACHE.get(refPath);
+    if (ret == null) {
+      ret = parsePath(refPath);
+      PATH_CACHE.put(refPath, ret);
+    }
+    return ret;
+  }
+  
+  private static AttributeRef parsePath(String refPath) {
+    if (refPath.equals("/")) {
       return new AttributeRef(Errors.ATTR_EMPTY, refPath);
     }
     if (refPath.charAt(0) != '/') {
       // When there is no leading slash, this is a simple attribute reference with no character escaping.
-      return new AttributeRef(refPath, refPath, null);
+      AttributeRef internedInstance = COMMON_LITERALS.get(refPath);
+      return internedInstance == null ? new AttributeRef(refPath, refPath, null) : internedInstance;
     }
     if (refPath.indexOf('/', 1) < 0) {
       // There's only one segment, so this is still a simple attribute reference. However, we still may
@@ -129,15 +160,25 @@ public final class AttributeRef implements JsonSerializable, Comparable<Attribut
     if (attributeName == null || attributeName.isEmpty()) {
       return new AttributeRef(Errors.ATTR_EMPTY, "");
     }
+    AttributeRef ret = COMMON_LITERALS.get(attributeName);
+    if (ret != null) {
+      return ret;
+    }
+    ret = LITERAL_CACHE.get(attributeName);
+    if (ret != null) {
+      return ret;
+    }
     if (attributeName.charAt(0) != '/') {
       // When there is no leading slash, this is a simple attribute reference with no character escaping.
-      AttributeRef internedInstance = COMMON_LITERALS.get(attributeName);
-      return internedInstance == null ? new AttributeRef(attributeName, attributeName, null) : internedInstance;
+      ret = new AttributeRef(attributeName, attributeName, null);
+    } else {
+      // If there is a leading slash, then the attribute name actually starts with a slash. To represent it
+      // as an AttributeRef, it'll need to be escaped.
+      String escapedPath = "/" + attributeName.replace("~", "~0").replace("/", "~1");
+      ret = new AttributeRef(escapedPath, attributeName, null);
     }
-    // If there is a leading slash, then the attribute name actually starts with a slash. To represent it
-    // as an AttributeRef, it'll need to be escaped.
-    String escapedPath = "/" + attributeName.replace("~", "~0").replace("/", "~1");
-    return new AttributeRef(escapedPath, attributeName, null);
+    LITERAL_CACHE.put(attributeName, ret);
+    return ret;
   }
   
   /**
@@ -249,6 +290,27 @@ public final class AttributeRef implements JsonSerializable, Comparable<Attribut
     return rawPath.compareTo(o.rawPath);
   }
   
+  // Used by LDContext to walk the rest of the path after the top-level attribute, without having to
+  // go through getComponent(). Returns null if the depth is 1.
+  String[] getNestedPath() {
+    return components;
+  }
+  
+  private static int builtInAttributeFor(String name) {
+    switch (name) {
+    case "kind":
+      return KIND_ATTRIBUTE;
+    case "key":
+      return KEY_ATTRIBUTE;
+    case "name":
+      return NAME_ATTRIBUTE;
+    case "anonymous":
+      return ANONYMOUS_ATTRIBUTE;
+    default:
+      return CUSTOM_ATTRIBUTE;
+    }
+  }
+  
   private static String unescapePath(String path) {
     // If there are no tildes then there's definitely nothing to do
     if (path.indexOf('~') < 0) {
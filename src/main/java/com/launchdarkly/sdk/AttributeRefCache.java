@@ -0,0 +1,91 @@
+package com.launchdarkly.sdk;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A bounded cache of AttributeRef instances, keyed by the string they were created from. The SDK
+// tends to create AttributeRefs from the same few hundred strings over and over (attribute names in
+// flag rules, private attribute lists, etc.), so this lets AttributeRef.fromPath and fromLiteral
+// skip parsing and allocation for those.
+//
+// Like the string cache in LDValueString, this is direct-mapped: each string can only go in one slot,
+// and a colliding entry is simply overwritten, so the size never exceeds the array length. Entry and
+// AttributeRef are immutable with final fields, so threads can read and write the array without any
+// locking; the worst that a race can do is cause a cache miss.
+final class AttributeRefCache {
+  static final int DEFAULT_SIZE = 1024;
+
+  // Longer strings are very unlikely to be reused, and we don't want to hold onto them.
+  static final int MAX_CACHED_STRING_LENGTH = 256;
+
+  // Hit and miss counts are striped by thread, with each stripe on its own 64-byte cache line, so
+  // that threads doing lookups at the same time don't contend for a single counter. We can't use
+  // LongAdder, which would do the same thing, because it isn't available in Java 7 or older Android.
+  private static final int COUNTER_STRIPES = 8; // must be a power of 2
+  private static final int COUNTER_SPACING = 8; // number of longs in a cache line
+
+  private final Entry[] entries;
+  private final int mask;
+  private final AtomicLongArray hits = new AtomicLongArray(COUNTER_STRIPES * COUNTER_SPACING);
+  private final AtomicLongArray misses = new AtomicLongArray(COUNTER_STRIPES * COUNTER_SPACING);
+
+  AttributeRefCache(int size) {
+    if (size <= 0 || (size & (size - 1)) != 0) {
+      throw new IllegalArgumentException("cache size must be a power of 2");
+    }
+    this.entries = new Entry[size];
+    this.mask = size - 1;
+  }
+
+  // Returns the cached AttributeRef for this string, or null if it is not in the cache.
+  AttributeRef get(String s) {
+    Entry e = entries[s.hashCode() & mask];
+    if (e != null && e.key.equals(s)) {
+      hits.incrementAndGet(counterIndex());
+      return e.ref;
+    }
+    misses.incrementAndGet(counterIndex());
+    return null;
+  }
+
+  void put(String s, AttributeRef ref) {
+    if (s.length() <= MAX_CACHED_STRING_LENGTH) {
+      entries[s.hashCode() & mask] = new Entry(s, ref);
+    }
+  }
+
+  void clear() {
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = null;
+    }
+  }
+
+  long getHits() {
+    return sum(hits);
+  }
+
+  long getMisses() {
+    return sum(misses);
+  }
+
+  private static int counterIndex() {
+    return ((int)Thread.currentThread().getId() & (COUNTER_STRIPES - 1)) * COUNTER_SPACING;
+  }
+
+  private static long sum(AtomicLongArray counters) {
+    long total = 0;
+    for (int i = 0; i < counters.length(); i += COUNTER_SPACING) {
+      total += counters.get(i);
+    }
+    return total;
+  }
+
+  private static final class Entry {
+    final String key;
+    final AttributeRef ref;
+
+    Entry(String key, AttributeRef ref) {
+      this.key = key;
+      this.ref = ref;
+    }
+  }
+}
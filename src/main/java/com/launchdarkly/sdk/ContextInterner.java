@@ -0,0 +1,126 @@
+package com.launchdarkly.sdk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded pool of canonical {@link LDContext} instances.
+ * <p>
+ * Applications that receive the same contexts over and over-- for instance, deserializing
+ * the same user and organization from every incoming request-- end up with many LDContext
+ * instances that are equal but separate, each with its own copies of its attributes.
+ * Passing each one through {@link #intern(LDContext)} returns the first equal instance that
+ * was seen instead, so the duplicates can be garbage-collected right away, and any caches
+ * that are keyed on LDContext will find the same instance each time.
+ * <p>
+ * Using an interner is optional, and the SDK never does so on its own. The pool holds at
+ * most the number of contexts specified in the constructor; when it is full, the contexts
+ * that were least recently looked up are discarded. It is safe to use from multiple
+ * threads; contexts are divided among several independently locked segments, so threads
+ * looking up different contexts usually do not block each other.
+ * <p>
+ * Two contexts are considered the same if they are equal according to
+ * {@link LDContext#equals(Object)}, so a context with the same kind and key but different
+ * attributes is a different entry. Invalid contexts are never stored.
+ */
+public final class ContextInterner {
+  private static final int MAX_SEGMENTS = 16;
+
+  private final Segment[] segments;
+
+  /**
+   * Creates an empty interner.
+   *
+   * @param capacity the maximum number of contexts to keep
+   * @throws IllegalArgumentException if the capacity is less than 1
+   */
+  public ContextInterner(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    // Use a power of 2 for the number of segments so we can pick a segment by masking the hash,
+    // but don't divide the capacity so finely that each segment only holds a few contexts.
+    int segmentCount = 1;
+    while (segmentCount < MAX_SEGMENTS && segmentCount * 2 * MAX_SEGMENTS <= capacity) {
+      segmentCount *= 2;
+    }
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      // The segments' capacities add up to exactly the total capacity
+      segments[i] = new Segment(capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0));
+    }
+  }
+
+  /**
+   * Returns the canonical instance of a context.
+   * <p>
+   * If an equal context is already in the pool, that instance is returned. Otherwise, the
+   * context is added to the pool and returned. If the context is null or invalid, it is
+   * returned unchanged.
+   *
+   * @param context a context
+   * @return an equal context, which may or may not be the same instance
+   */
+  public LDContext intern(LDContext context) {
+    if (context == null || !context.isValid()) {
+      return context;
+    }
+    int h = context.hashCode();
+    return segments[(h ^ (h >>> 16)) & (segments.length - 1)].intern(context);
+  }
+
+  /**
+   * Returns the number of contexts currently in the pool.
+   *
+   * @return the number of contexts
+   */
+  public int size() {
+    int n = 0;
+    for (Segment s: segments) {
+      n += s.size();
+    }
+    return n;
+  }
+
+  /**
+   * Removes all contexts from the pool.
+   */
+  public void clear() {
+    for (Segment s: segments) {
+      s.clear();
+    }
+  }
+
+  private static final class Segment {
+    private final LinkedHashMap<LDContext, LDContext> map;
+
+    Segment(final int capacity) {
+      // With accessOrder=true, LinkedHashMap keeps the least recently used entry first
+      map = new LinkedHashMap<LDContext, LDContext>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LDContext, LDContext> eldest) {
+          return size() > capacity;
+        }
+      };
+    }
+
+    synchronized LDContext intern(LDContext context) {
+      LDContext existing = map.get(context);
+      if (existing != null) {
+        return existing;
+      }
+      map.put(context, context);
+      return context;
+    }
+
+    synchronized int size() {
+      return map.size();
+    }
+
+    synchronized void clear() {
+      map.clear();
+    }
+  }
+}
@@ -3,6 +3,9 @@ package com.launchdarkly.sdk;
 import com.google.gson.annotations.JsonAdapter;
 import com.launchdarkly.sdk.json.JsonSerializable;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * A string identifier provided by the application to describe what kind of entity an
  * {@link LDContext} represents.
@@ -41,10 +44,22 @@ public final class ContextKind implements Comparable<ContextKind>, JsonSerializa
    */
   public static final ContextKind MULTI = new ContextKind("multi");
   
+  // Applications normally use only a few kinds, so we keep one canonical instance for each kind
+  // name that we see; that way, of() doesn't have to allocate anything, and two ContextKinds are
+  // usually equal only if they are the same instance. To prevent unbounded growth if an application
+  // creates kinds from arbitrary input, we stop adding to the table once it reaches a fixed size;
+  // after that, new kind names get uninterned instances, which still work but have to be compared
+  // by string value. Kinds that aren't valid for a context are never interned, since they most
+  // likely came from bad input and a context can't be built with them anyway.
+  static final int MAX_INTERNED_KINDS = 1000;
+  private static final ConcurrentMap<String, ContextKind> INTERNED = new ConcurrentHashMap<>();
+  
   private final String kindName;
+  private final String singleKindError; // see validateAsSingleKind()
   
   private ContextKind(String kindName) {
     this.kindName = kindName;
+    this.singleKindError = computeSingleKindError(kindName);
   }
   
   /**
@@ -62,7 +77,19 @@ public final class ContextKind implements Comparable<ContextKind>, JsonSerializa
     if (stringValue.equals(MULTI.kindName)) {
       return MULTI;
     }
-    return new ContextKind(stringValue);
+    ContextKind ret = INTERNED.get(stringValue);
+    if (ret == null) {
+      ret = new ContextKind(stringValue);
+      if (ret.singleKindError == null && INTERNED.size() < MAX_INTERNED_KINDS) {
+        // The size check isn't atomic with the insert, so concurrent callers could overshoot the limit
+        // slightly, but that doesn't matter; it only needs to be bounded.
+        ContextKind existing = INTERNED.putIfAbsent(stringValue, ret);
+        if (existing != null) {
+          ret = existing;
+        }
+      }
+    }
+    return ret;
   }
   
   /**
@@ -83,6 +110,8 @@ public final class ContextKind implements Comparable<ContextKind>, JsonSerializa
   
   @Override
   public boolean equals(Object other) {
+    // Interned instances are the same object if they are equal, but we can't assume that every
+    // instance is interned (see of()), so we still fall back to a string comparison.
     return other instanceof ContextKind &&
         (this == other || kindName.equals(((ContextKind)other).kindName));
   }
@@ -92,11 +121,20 @@ public final class ContextKind implements Comparable<ContextKind>, JsonSerializa
     return kindName.hashCode();
   }
   
+  // Returns an error message if this kind can't be used for a single-kind context, or null if it can.
+  // Since this is checked every time a context is created, the result is computed only once, when the
+  // ContextKind is constructed.
   String validateAsSingleKind() {
-    if (isDefault()) {
+    return singleKindError;
+  }
+  
+  private static String computeSingleKindError(String kindName) {
+    // We can't use isDefault() or compare to MULTI here, because this is called while those
+    // constants are being initialized.
+    if (kindName.equals("user")) {
       return null;
     }
-    if (this == MULTI) {
+    if (kindName.equals("multi")) {
       return Errors.CONTEXT_KIND_MULTI_FOR_SINGLE;
     }
     if (kindName.equals("kind")) {
@@ -115,6 +153,6 @@ public final class ContextKind implements Comparable<ContextKind>, JsonSerializa
 
   @Override
   public int compareTo(ContextKind o) {
-    return kindName.compareTo(o.kindName);
+    return this == o ? 0 : kindName.compareTo(o.kindName);
   }
 }
@@ -2,6 +2,7 @@ package com.launchdarkly.sdk;
 
 import com.google.gson.annotations.JsonAdapter;
 import com.launchdarkly.sdk.json.JsonSerializable;
+import com.launchdarkly.sdk.json.JsonSerialization;
 
 import java.util.Objects;
 
@@ -133,6 +134,15 @@ public final class EvaluationReason implements JsonSerializable {
   private static final EvaluationReason ERROR_USER_NOT_SPECIFIED = new EvaluationReason(ErrorKind.USER_NOT_SPECIFIED, null);
   private static final EvaluationReason ERROR_WRONG_TYPE = new EvaluationReason(ErrorKind.WRONG_TYPE, null);
   private static final EvaluationReason ERROR_EXCEPTION = new EvaluationReason(ErrorKind.EXCEPTION, null);
+
+  // Reasons with parameters that can't all be covered by static instances, such as RULE_MATCH, are
+  // interned in this table instead. Since a flag has a small fixed set of rules and prerequisites, an
+  // evaluator that keeps producing the same reasons will get the same instances back without
+  // allocating anything. Like AttributeRefCache, the table is direct-mapped: a colliding entry is
+  // simply overwritten, and since EvaluationReason is immutable with final fields, threads can share
+  // it without locking. Reasons that have an exception are never interned.
+  private static final int INTERNED_TABLE_SIZE = 1024; // must be a power of 2
+  private static final EvaluationReason[] interned = new EvaluationReason[INTERNED_TABLE_SIZE];
   
   private final Kind kind;
   private final int ruleIndex;
@@ -142,6 +152,7 @@ public final class EvaluationReason implements JsonSerializable {
   private final ErrorKind errorKind;
   private final Exception exception;
   private final BigSegmentsStatus bigSegmentsStatus;
+  private String json; // null if not yet computed
   
   private EvaluationReason(Kind kind, int ruleIndex, String ruleId, String prerequisiteKey, boolean inExperiment,
       ErrorKind errorKind, Exception exception, BigSegmentsStatus bigSegmentsStatus) {
@@ -263,11 +274,30 @@ public final class EvaluationReason implements JsonSerializable {
    * value.
    *
    * @param bigSegmentsStatus the new property value
-   * @return a new reason object
+   * @return a reason object; this may be the same instance if the property already had that value
    */
   public EvaluationReason withBigSegmentsStatus(BigSegmentsStatus bigSegmentsStatus) {
-    return new EvaluationReason(kind, ruleIndex, ruleId, prerequisiteKey, inExperiment, errorKind,
-        exception, bigSegmentsStatus);
+    if (bigSegmentsStatus == this.bigSegmentsStatus) {
+      return this;
+    }
+    if (exception != null) {
+      return new EvaluationReason(kind, ruleIndex, ruleId, prerequisiteKey, inExperiment, errorKind,
+          exception, bigSegmentsStatus);
+    }
+    return intern(kind, ruleIndex, ruleId, prerequisiteKey, inExperiment, errorKind, bigSegmentsStatus);
+  }
+
+  // Returns the JSON representation, computing it only the first time. Most reasons are interned, so
+  // there are only a few distinct instances in use at a time, and EvaluationReasonTypeAdapter can
+  // write each one into an evaluation detail or an analytics event as a single precomputed fragment.
+  // This is the same racy caching idiom as in LDValueObject.hashCode().
+  String jsonString() {
+    String s = json;
+    if (s == null) {
+      s = JsonSerialization.serialize(this);
+      json = s;
+    }
+    return s;
   }
 
   /**
@@ -377,7 +407,7 @@ public final class EvaluationReason implements JsonSerializable {
    * @return a reason object
    */
   public static EvaluationReason ruleMatch(int ruleIndex, String ruleId, boolean inExperiment) {
-    return new EvaluationReason(Kind.RULE_MATCH, ruleIndex, ruleId, null, inExperiment, null, null, null);
+    return intern(Kind.RULE_MATCH, ruleIndex, ruleId, null, inExperiment, null, null);
   }
   
   /**
@@ -387,7 +417,7 @@ public final class EvaluationReason implements JsonSerializable {
    * @return a reason object
    */
   public static EvaluationReason prerequisiteFailed(String prerequisiteKey) {
-    return new EvaluationReason(Kind.PREREQUISITE_FAILED, -1, null, prerequisiteKey, NOT_IN_EXPERIMENT, null, null, null);
+    return intern(Kind.PREREQUISITE_FAILED, -1, null, prerequisiteKey, NOT_IN_EXPERIMENT, null, null);
   }
   
   /**
@@ -420,4 +450,26 @@ public final class EvaluationReason implements JsonSerializable {
   public static EvaluationReason exception(Exception exception) {
     return new EvaluationReason(ErrorKind.EXCEPTION, exception);
   }
+
+  private static EvaluationReason intern(Kind kind, int ruleIndex, String ruleId, String prerequisiteKey,
+      boolean inExperiment, ErrorKind errorKind, BigSegmentsStatus bigSegmentsStatus) {
+    int h = kind.ordinal();
+    h = h * 31 + ruleIndex;
+    h = h * 31 + (ruleId == null ? 0 : ruleId.hashCode());
+    h = h * 31 + (prerequisiteKey == null ? 0 : prerequisiteKey.hashCode());
+    h = h * 31 + (inExperiment ? 1 : 0);
+    h = h * 31 + (errorKind == null ? 0 : errorKind.ordinal() + 1);
+    h = h * 31 + (bigSegmentsStatus == null ? 0 : bigSegmentsStatus.ordinal() + 1);
+    int slot = (h ^ (h >>> 16)) & (INTERNED_TABLE_SIZE - 1);
+    EvaluationReason r = interned[slot];
+    if (r != null && r.kind == kind && r.ruleIndex == ruleIndex && Objects.equals(r.ruleId, ruleId) &&
+        Objects.equals(r.prerequisiteKey, prerequisiteKey) && r.inExperiment == inExperiment &&
+        r.errorKind == errorKind && r.bigSegmentsStatus == bigSegmentsStatus) {
+      return r;
+    }
+    r = new EvaluationReason(kind, ruleIndex, ruleId, prerequisiteKey, inExperiment, errorKind, null,
+        bigSegmentsStatus);
+    interned[slot] = r;
+    return r;
+  }
 }
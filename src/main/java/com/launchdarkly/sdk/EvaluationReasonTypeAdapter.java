@@ -92,6 +92,12 @@ final class EvaluationReasonTypeAdapter extends TypeAdapter<EvaluationReason> {
 
   @Override
   public void write(JsonWriter writer, EvaluationReason reason) throws IOException {
+    if (Helpers.canWriteRawJson(writer)) {
+      // As with a large LDValue, the cached JSON uses JsonSerialization's escaping, which may not be
+      // exactly what this writer would have produced, but it is equivalent JSON.
+      writer.jsonValue(reason.jsonString());
+      return;
+    }
     writer.beginObject();
     writer.name("kind");
     writer.value(reason.getKind().name());
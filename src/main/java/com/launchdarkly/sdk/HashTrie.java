@@ -0,0 +1,430 @@
+package com.launchdarkly.sdk;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// An immutable hash array mapped trie (HAMT) of string keys to LDValues, used by LDValueObject for
+// objects that are too big for its compact representation. Adding, replacing, or removing a key copies
+// only the nodes on the path to that key, so it takes O(log n) time and the new trie shares all of its
+// other nodes with the old one.
+//
+// Each node holds an array of key/value pairs. In a BitmapNode, each 5-bit fragment of a key's hash
+// code selects a bit in the bitmap; if that bit is set, the node has a pair for that fragment, which
+// is either an actual key and value, or a null key and a child node for all the keys that share the
+// fragment. (A null key with a non-Node value is a real entry, since LDValueObject allows null keys.)
+// A CollisionNode holds keys whose hash codes are entirely equal, and is searched linearly.
+final class HashTrie {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  // 7 levels of bitmap nodes are enough to use up all 32 bits of the hash, plus a collision node
+  private static final int MAX_DEPTH = 8;
+
+  static final HashTrie EMPTY = new HashTrie(new BitmapNode(0, new Object[0]), 0);
+
+  private final Node root;
+  private final int size;
+
+  private HashTrie(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  static HashTrie fromMap(Map<String, LDValue> map) {
+    int size = map.size();
+    String[] keys = new String[size];
+    LDValue[] values = new LDValue[size];
+    int i = 0;
+    for (Map.Entry<String, LDValue> e: map.entrySet()) {
+      keys[i] = e.getKey();
+      values[i] = e.getValue();
+      i++;
+    }
+    return fromArrays(keys, values);
+  }
+
+  // Builds the trie bottom-up, rather than by adding one key at a time, so that no intermediate nodes
+  // are created. The arrays must not contain any duplicate keys.
+  static HashTrie fromArrays(String[] keys, LDValue[] values) {
+    int size = keys.length;
+    if (size == 0) {
+      return EMPTY;
+    }
+    int[] hashes = new int[size];
+    int[] indices = new int[size];
+    for (int i = 0; i < size; i++) {
+      hashes[i] = hash(keys[i]);
+      indices[i] = i;
+    }
+    return new HashTrie(build(keys, values, hashes, indices, 0, size, 0), size);
+  }
+
+  int size() {
+    return size;
+  }
+
+  LDValue get(String key) {
+    return root.get(hash(key), key, 0);
+  }
+
+  HashTrie with(String key, LDValue value) {
+    boolean[] added = new boolean[1];
+    Node newRoot = root.put(hash(key), key, value, 0, added);
+    return newRoot == root ? this : new HashTrie(newRoot, added[0] ? size + 1 : size);
+  }
+
+  HashTrie without(String key) {
+    Node newRoot = root.remove(hash(key), key, 0);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot == null ? EMPTY : new HashTrie(newRoot, size - 1);
+  }
+
+  Cursor cursor() {
+    return new Cursor(root);
+  }
+
+  Iterator<String> keyIterator() {
+    final Cursor c = cursor();
+    return new CursorIterator<String>(c) {
+      @Override
+      String current() {
+        return c.key();
+      }
+    };
+  }
+
+  Iterator<LDValue> valueIterator() {
+    final Cursor c = cursor();
+    return new CursorIterator<LDValue>(c) {
+      @Override
+      LDValue current() {
+        return c.value();
+      }
+    };
+  }
+
+  private static int hash(String key) {
+    return key == null ? 0 : key.hashCode();
+  }
+
+  private static boolean keysEqual(String a, String b) {
+    return a == null ? b == null : a.equals(b);
+  }
+
+  // Builds a node for the entries listed in indices[from..to), all of which have the same hash bits
+  // below the given shift. This reorders that part of the indices array.
+  private static Node build(String[] keys, LDValue[] values, int[] hashes, int[] indices,
+      int from, int to, int shift) {
+    int count = to - from;
+    if (count > 1) {
+      boolean allSameHash = true;
+      for (int i = from + 1; i < to && allSameHash; i++) {
+        allSameHash = hashes[indices[i]] == hashes[indices[from]];
+      }
+      if (allSameHash) {
+        Object[] array = new Object[count * 2];
+        for (int i = 0; i < count; i++) {
+          array[i * 2] = keys[indices[from + i]];
+          array[i * 2 + 1] = values[indices[from + i]];
+        }
+        return new CollisionNode(hashes[indices[from]], array);
+      }
+    }
+    // Group the entries by the hash fragment for this level, with a counting sort
+    int[] starts = new int[MASK + 2];
+    for (int i = from; i < to; i++) {
+      starts[fragment(hashes[indices[i]], shift) + 1]++;
+    }
+    int bitmap = 0;
+    for (int b = 0; b <= MASK; b++) {
+      if (starts[b + 1] != 0) {
+        bitmap |= 1 << b;
+      }
+      starts[b + 1] += starts[b];
+    }
+    int[] sorted = new int[count];
+    for (int i = from; i < to; i++) {
+      int b = fragment(hashes[indices[i]], shift);
+      sorted[starts[b]++] = indices[i];
+    }
+    System.arraycopy(sorted, 0, indices, from, count);
+    Object[] array = new Object[Integer.bitCount(bitmap) * 2];
+    int slot = 0, pos = from;
+    for (int b = 0; b <= MASK; b++) {
+      if ((bitmap & (1 << b)) == 0) {
+        continue;
+      }
+      int end = from + starts[b]; // starts[b] has been advanced to the end of bucket b
+      if (end - pos == 1) {
+        array[slot] = keys[indices[pos]];
+        array[slot + 1] = values[indices[pos]];
+      } else {
+        array[slot + 1] = build(keys, values, hashes, indices, pos, end, shift + BITS);
+      }
+      slot += 2;
+      pos = end;
+    }
+    return new BitmapNode(bitmap, array);
+  }
+
+  private static int fragment(int hash, int shift) {
+    return (hash >>> shift) & MASK;
+  }
+
+  private static Node createNode(int shift, String key1, LDValue value1, int hash2, String key2, LDValue value2) {
+    int hash1 = hash(key1);
+    if (hash1 == hash2) {
+      return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+    }
+    boolean[] added = new boolean[1];
+    return EMPTY.root.put(hash1, key1, value1, shift, added).put(hash2, key2, value2, shift, added);
+  }
+
+  private static abstract class Node {
+    final Object[] array;
+
+    Node(Object[] array) {
+      this.array = array;
+    }
+
+    // Returns null if not found.
+    abstract LDValue get(int hash, String key, int shift);
+
+    // Returns this node if nothing changed. Sets added[0] if the key was not already present.
+    abstract Node put(int hash, String key, LDValue value, int shift, boolean[] added);
+
+    // Returns this node if the key was not found, or null if the node is now empty.
+    abstract Node remove(int hash, String key, int shift);
+
+    Object[] copyWithSlot(int index, Object value) {
+      Object[] a = array.clone();
+      a[index] = value;
+      return a;
+    }
+
+    Object[] copyWithoutPair(int pairIndex) {
+      Object[] a = new Object[array.length - 2];
+      System.arraycopy(array, 0, a, 0, pairIndex * 2);
+      System.arraycopy(array, pairIndex * 2 + 2, a, pairIndex * 2, a.length - pairIndex * 2);
+      return a;
+    }
+  }
+
+  private static final class BitmapNode extends Node {
+    final int bitmap;
+
+    BitmapNode(int bitmap, Object[] array) {
+      super(array);
+      this.bitmap = bitmap;
+    }
+
+    private int pairIndex(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @Override
+    LDValue get(int hash, String key, int shift) {
+      int bit = 1 << fragment(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      int i = pairIndex(bit) * 2;
+      Object v = array[i + 1];
+      if (v instanceof Node) {
+        return ((Node)v).get(hash, key, shift + BITS);
+      }
+      return keysEqual(key, (String)array[i]) ? (LDValue)v : null;
+    }
+
+    @Override
+    Node put(int hash, String key, LDValue value, int shift, boolean[] added) {
+      int bit = 1 << fragment(hash, shift);
+      int i = pairIndex(bit) * 2;
+      if ((bitmap & bit) == 0) {
+        Object[] a = new Object[array.length + 2];
+        System.arraycopy(array, 0, a, 0, i);
+        a[i] = key;
+        a[i + 1] = value;
+        System.arraycopy(array, i, a, i + 2, array.length - i);
+        added[0] = true;
+        return new BitmapNode(bitmap | bit, a);
+      }
+      Object k = array[i], v = array[i + 1];
+      if (v instanceof Node) {
+        Node n = ((Node)v).put(hash, key, value, shift + BITS, added);
+        return n == v ? this : new BitmapNode(bitmap, copyWithSlot(i + 1, n));
+      }
+      if (keysEqual(key, (String)k)) {
+        return v == value ? this : new BitmapNode(bitmap, copyWithSlot(i + 1, value));
+      }
+      added[0] = true;
+      Object[] a = copyWithSlot(i + 1, createNode(shift + BITS, (String)k, (LDValue)v, hash, key, value));
+      a[i] = null;
+      return new BitmapNode(bitmap, a);
+    }
+
+    @Override
+    Node remove(int hash, String key, int shift) {
+      int bit = 1 << fragment(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int i = pairIndex(bit) * 2;
+      Object v = array[i + 1];
+      if (v instanceof Node) {
+        Node n = ((Node)v).remove(hash, key, shift + BITS);
+        if (n == v) {
+          return this;
+        }
+        if (n != null) {
+          if (n.array.length == 2 && !(n.array[1] instanceof Node)) {
+            // the child has only one entry left, so we can store it directly in this node
+            Object[] a = copyWithSlot(i + 1, n.array[1]);
+            a[i] = n.array[0];
+            return new BitmapNode(bitmap, a);
+          }
+          return new BitmapNode(bitmap, copyWithSlot(i + 1, n));
+        }
+      } else if (!keysEqual(key, (String)array[i])) {
+        return this;
+      }
+      return bitmap == bit ? null : new BitmapNode(bitmap & ~bit, copyWithoutPair(i / 2));
+    }
+  }
+
+  private static final class CollisionNode extends Node {
+    final int hash;
+
+    CollisionNode(int hash, Object[] array) {
+      super(array);
+      this.hash = hash;
+    }
+
+    private int indexOf(String key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (keysEqual(key, (String)array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    LDValue get(int hash, String key, int shift) {
+      if (hash != this.hash) {
+        return null;
+      }
+      int i = indexOf(key);
+      return i < 0 ? null : (LDValue)array[i + 1];
+    }
+
+    @Override
+    Node put(int hash, String key, LDValue value, int shift, boolean[] added) {
+      if (hash != this.hash) {
+        // Push this node down a level, under a bitmap node that can also hold the new key
+        Node parent = new BitmapNode(1 << fragment(this.hash, shift), new Object[] { null, this });
+        return parent.put(hash, key, value, shift, added);
+      }
+      int i = indexOf(key);
+      if (i >= 0) {
+        return array[i + 1] == value ? this : new CollisionNode(hash, copyWithSlot(i + 1, value));
+      }
+      Object[] a = new Object[array.length + 2];
+      System.arraycopy(array, 0, a, 0, array.length);
+      a[array.length] = key;
+      a[array.length + 1] = value;
+      added[0] = true;
+      return new CollisionNode(hash, a);
+    }
+
+    @Override
+    Node remove(int hash, String key, int shift) {
+      int i = hash == this.hash ? indexOf(key) : -1;
+      if (i < 0) {
+        return this;
+      }
+      return array.length == 2 ? null : new CollisionNode(hash, copyWithoutPair(i / 2));
+    }
+  }
+
+  // Visits every entry in the trie, depth-first. Usage: while (c.next()) { c.key(); c.value(); }
+  static final class Cursor {
+    private final Object[][] stack = new Object[MAX_DEPTH][];
+    private final int[] positions = new int[MAX_DEPTH];
+    private int depth;
+    private String key;
+    private LDValue value;
+
+    private Cursor(Node root) {
+      stack[0] = root.array;
+    }
+
+    boolean next() {
+      while (depth >= 0) {
+        Object[] a = stack[depth];
+        int p = positions[depth];
+        if (p >= a.length) {
+          depth--;
+          continue;
+        }
+        positions[depth] = p + 2;
+        Object v = a[p + 1];
+        if (v instanceof Node) {
+          depth++;
+          stack[depth] = ((Node)v).array;
+          positions[depth] = 0;
+          continue;
+        }
+        key = (String)a[p];
+        value = (LDValue)v;
+        return true;
+      }
+      return false;
+    }
+
+    String key() {
+      return key;
+    }
+
+    LDValue value() {
+      return value;
+    }
+  }
+
+  private static abstract class CursorIterator<T> implements Iterator<T> {
+    private final Cursor cursor;
+    private boolean ready, hasNext;
+
+    CursorIterator(Cursor cursor) {
+      this.cursor = cursor;
+    }
+
+    abstract T current();
+
+    @Override
+    public boolean hasNext() {
+      if (!ready) {
+        hasNext = cursor.next();
+        ready = true;
+      }
+      return hasNext;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ready = false;
+      return current();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException(); // COVERAGE: the Iterables we return are read-only
+    }
+  }
+}
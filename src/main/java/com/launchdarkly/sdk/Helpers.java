@@ -2,6 +2,7 @@ package com.launchdarkly.sdk;
 
 import com.google.gson.JsonParseException;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
 import java.util.Iterator;
@@ -36,6 +37,13 @@ abstract class Helpers {
   }
 
   // Necessary because Gson's nextString() doesn't allow nulls and *does* allow non-string values
+  // Returns true if we can use JsonWriter.jsonValue() to write a precomputed JSON fragment. Gson's
+  // JsonTreeWriter, which Gson.toJsonTree() uses, does not support that method. We check the class
+  // name because the class is internal to Gson, and may be shaded in some SDK distributions.
+  static boolean canWriteRawJson(JsonWriter writer) {
+    return !writer.getClass().getName().endsWith(".JsonTreeWriter");
+  }
+  
   static String readNullableString(JsonReader reader) throws IOException {
     switch (reader.peek()) {
     case STRING:
@@ -56,17 +56,28 @@ public final class LDContext implements JsonSerializable {
   final ContextKind kind;
   final LDContext[] multiContexts;
   final String key;
-  final String fullyQualifiedKey;
+  private String fullyQualifiedKey; // null if not yet computed; see getFullyQualifiedKey()
   final String name;
   final Map<String, LDValue> attributes;
   final boolean anonymous;
   final List<AttributeRef> privateAttributes;
   
+  // The same private attributes in sorted order, or null if there are none. getPrivateAttribute()
+  // has to preserve the order they were specified in, but equals() doesn't care about order, so
+  // this lets it compare them in a single pass.
+  private final AttributeRef[] sortedPrivateAttributes;
+  
+  // LDValue forms of the kind and key, created the first time they are looked up with an AttributeRef
+  // and then reused, since rules that reference these attributes are evaluated many times against the
+  // same context. This is the same racy but safe idiom that LDValueObject uses for its hash code.
+  private LDValue kindValue;
+  private LDValue keyValue;
+  private int hashCode; // zero if not yet computed
+  
   private LDContext(
       ContextKind kind,
       LDContext[] multiContexts,
       String key,
-      String fullyQualifiedKey,
       String name,
       Map<String, LDValue> attributes,
       boolean anonymous,
@@ -76,11 +87,11 @@ public final class LDContext implements JsonSerializable {
     this.kind = kind == null ? ContextKind.DEFAULT : kind;
     this.multiContexts = multiContexts;
     this.key = key;
-    this.fullyQualifiedKey = fullyQualifiedKey;
     this.name = name;
     this.attributes = attributes;
     this.anonymous = anonymous;
     this.privateAttributes = privateAttributes;
+    this.sortedPrivateAttributes = sortPrivateAttributes(privateAttributes);
   }
 
   private LDContext(String error) {
@@ -88,11 +99,11 @@ public final class LDContext implements JsonSerializable {
     this.kind = null;
     this.multiContexts = null;
     this.key = "";
-    this.fullyQualifiedKey = "";
     this.name = null;
     this.attributes = null;
     this.anonymous = false;
     this.privateAttributes = null;
+    this.sortedPrivateAttributes = null;
   }
   
   // Internal factory method for single-kind contexts.
@@ -114,9 +125,7 @@ public final class LDContext implements JsonSerializable {
     if (key == null || (key.isEmpty() && !allowEmptyKey)) {
       return failed(Errors.CONTEXT_NO_KEY);
     }
-    String fullyQualifiedKey = kind.isDefault() ? key :
-      (kind.toString() + ":" + escapeKeyForFullyQualifiedKey(key));
-    return new LDContext(kind, null, key, fullyQualifiedKey, name, attributes, anonymous, privateAttributes);
+    return new LDContext(kind, null, key, name, attributes, anonymous, privateAttributes);
   }
   
   // Internal factory method for multi-kind contexts - implements all of the validation logic
@@ -163,15 +172,7 @@ public final class LDContext implements JsonSerializable {
     }
     
     Arrays.sort(multiContexts, ByKindComparator.INSTANCE);
-    StringBuilder fullKey = new StringBuilder();
-    for (LDContext c: multiContexts) {
-      if (fullKey.length() != 0) {
-        fullKey.append(':');
-      }
-      fullKey.append(c.getKind().toString()).append(':').append(escapeKeyForFullyQualifiedKey(c.getKey()));
-    }
-    return new LDContext(ContextKind.MULTI, multiContexts, "", fullKey.toString(),
-        null, null, false, null);
+    return new LDContext(ContextKind.MULTI, multiContexts, "", null, null, false, null);
   }
   
   // Internal factory method for a context in an invalid state.
@@ -288,6 +289,18 @@ public final class LDContext implements JsonSerializable {
     if (user == null) {
       return failed(Errors.CONTEXT_FROM_NULL_USER);
     }
+    // LDUser is immutable, so if the same instance is passed in again we can return the same result;
+    // it's stored in the LDUser in the same racy but safe way that our hash code is cached.
+    LDContext ret = user.convertedContext;
+    if (ret == null) {
+      ret = convertUser(user);
+      user.convertedContext = ret;
+    }
+    return ret;
+  }
+  
+  @SuppressWarnings("deprecation")
+  private static LDContext convertUser(LDUser user) {
     String key = user.getKey();
     if (key == null) {
       if (user.isAnonymous()) {
@@ -300,6 +313,8 @@ public final class LDContext implements JsonSerializable {
         return failed(Errors.CONTEXT_NO_KEY);
       }
     }
+    // The map is built only once per LDUser, since the converted context is cached there. Custom
+    // attributes are added last so that they take precedence over built-in ones of the same name.
     Map<String, LDValue> attributes = null;
     for (UserAttribute a: UserAttribute.OPTIONAL_STRING_ATTRIBUTES) {
       if (a == UserAttribute.NAME) {
@@ -308,14 +323,14 @@ public final class LDContext implements JsonSerializable {
       LDValue value = user.getAttribute(a);
       if (!value.isNull()) {
         if (attributes == null) {
-          attributes = new HashMap<>(); 
+          attributes = new HashMap<>();
         }
         attributes.put(a.getName(), value);
       }
     }
     if (user.custom != null && !user.custom.isEmpty()) {
       if (attributes == null) {
-        attributes = new HashMap<>(); 
+        attributes = new HashMap<>();
       }
       for (Map.Entry<UserAttribute, LDValue> kv: user.custom.entrySet()) {
         attributes.put(kv.getKey().getName(), kv.getValue());
@@ -323,7 +338,7 @@ public final class LDContext implements JsonSerializable {
     }
     List<AttributeRef> privateAttributes = null;
     if (user.privateAttributeNames != null && !user.privateAttributeNames.isEmpty()) {
-      privateAttributes = new ArrayList<>();
+      privateAttributes = new ArrayList<>(user.privateAttributeNames.size());
       for (UserAttribute pa: user.privateAttributeNames) {
         privateAttributes.add(AttributeRef.fromLiteral(pa.getName()));
       }
@@ -332,7 +347,6 @@ public final class LDContext implements JsonSerializable {
         ContextKind.DEFAULT,
         null,
         key,
-        key,
         user.getName(),
         attributes,
         user.isAnonymous(),
@@ -634,23 +648,43 @@ public final class LDContext implements JsonSerializable {
       return LDValue.ofNull();
     }
     
-    String name = attributeRef.getComponent(0);
+    // The AttributeRef has already determined whether the first path component is a built-in
+    // attribute, so we don't need to look at the name unless it is a custom attribute.
+    String[] path = attributeRef.getNestedPath();
     
     if (isMultiple()) {
-      if (attributeRef.getDepth() == 1 && name.equals("kind")) {
-        return LDValue.of(kind.toString());
+      if (path == null && attributeRef.builtInAttribute == AttributeRef.KIND_ATTRIBUTE) {
+        return getKindValue();
       }
       return LDValue.ofNull(); // multi-kind context has no other addressable attributes
     }
     
     // Look up attribute in single-kind context
-    LDValue value = getTopLevelAttribute(name);
-    if (value.isNull()) {
+    LDValue value;
+    switch (attributeRef.builtInAttribute) {
+    case AttributeRef.KIND_ATTRIBUTE:
+      value = getKindValue();
+      break;
+    case AttributeRef.KEY_ATTRIBUTE:
+      value = getKeyValue();
+      break;
+    case AttributeRef.NAME_ATTRIBUTE:
+      value = LDValue.of(name);
+      break;
+    case AttributeRef.ANONYMOUS_ATTRIBUTE:
+      value = LDValue.of(anonymous);
+      break;
+    default:
+      value = attributes == null ? null : attributes.get(attributeRef.getComponent(0));
+      if (value == null) {
+        return LDValue.ofNull();
+      }
+    }
+    if (path == null) {
       return value;
     }
-    for (int i = 1; i < attributeRef.getDepth(); i++) {
-      String component = attributeRef.getComponent(i);
-      value = value.get(component); // returns LDValue.null() if either property isn't found or value isn't an object
+    for (int i = 1; i < path.length; i++) {
+      value = value.get(path[i]); // returns LDValue.null() if either property isn't found or value isn't an object
       if (value.isNull()) {
         break;
       }
@@ -731,13 +765,8 @@ public final class LDContext implements JsonSerializable {
       // kind.equals since kind has already been sanitized
       return kind.equals(this.kind) ? this : null;
     }
-    for (LDContext c: multiContexts) {
-      // kind.equals since kind has already been sanitized
-      if (kind.equals(c.kind)) {
-        return c;
-      }
-    }
-    return null;
+    int i = indexOfKind(kind.toString());
+    return i < 0 ? null : multiContexts[i];
   }
 
   /**
@@ -755,13 +784,34 @@ public final class LDContext implements JsonSerializable {
       // kind.equals since kind has already been sanitized
       return kind.equals(this.kind.toString()) ? this : null;
     }
-    for (LDContext c: multiContexts) {
-      // kind.equals since kind has already been sanitized
-      if (kind.equals(c.kind.toString())) {
-        return c;
-      }
+    int i = indexOfKind(kind);
+    return i < 0 ? null : multiContexts[i];
+  }
+  
+  /**
+   * Returns the position of the individual context for the specified kind within this context.
+   * <p>
+   * The result can be passed to {@link #getIndividualContext(int)}. Code that needs to get the
+   * context for the same kind many times can call this once and then use the index, rather than
+   * looking up the kind each time.
+   * <p>
+   * For a single-kind context, the result is zero if {@code kind} is the same as
+   * {@link #getKind()}. For a multi-kind context, the individual contexts are always ordered
+   * by kind, so the index for a given kind is the same in any two multi-kind contexts that have
+   * the same set of kinds. In either case, the result is -1 if the kind was not found.
+   * 
+   * @param kind the context kind to find; if null, defaults to {@link ContextKind#DEFAULT}
+   * @return a non-negative index, or -1 if that kind was not found
+   * @see #getIndividualContext(int)
+   */
+  public int getIndividualContextIndex(ContextKind kind) {
+    if (kind == null) {
+      kind = ContextKind.DEFAULT;
     }
-    return null;
+    if (multiContexts == null) {
+      return kind.equals(this.kind) ? 0 : -1;
+    }
+    return indexOfKind(kind.toString());
   }
   
   /**
@@ -800,7 +850,32 @@ public final class LDContext implements JsonSerializable {
    * @return the fully-qualified key
    */
   public String getFullyQualifiedKey() {
-    return fullyQualifiedKey;
+    // Many contexts are never asked for this, so we don't build it until it's needed; after that, it
+    // is reused the same way as the hash code. Every case is handled here rather than in the
+    // constructor, so that the result doesn't depend on which thread computes it.
+    if (error != null) {
+      return "";
+    }
+    if (multiContexts == null && kind.isDefault()) {
+      return key;
+    }
+    String k = fullyQualifiedKey;
+    if (k == null) {
+      StringBuilder sb = new StringBuilder();
+      if (multiContexts == null) {
+        appendKindAndEscapedKey(sb, kind, key);
+      } else {
+        for (LDContext c: multiContexts) {
+          if (sb.length() != 0) {
+            sb.append(':');
+          }
+          appendKindAndEscapedKey(sb, c.kind, c.key);
+        }
+      }
+      k = sb.toString();
+      fullyQualifiedKey = k;
+    }
+    return k;
   }
   
   /**
@@ -830,6 +905,10 @@ public final class LDContext implements JsonSerializable {
       return false;
     }
     LDContext o = (LDContext)other;
+    int h = hashCode, oh = o.hashCode;
+    if (h != 0 && oh != 0 && h != oh) {
+      return false; // if both hashes have already been computed, we can use them to rule out equality
+    }
     if (!Objects.equals(error, o.error)) {
       return false;
     }
@@ -864,32 +943,25 @@ public final class LDContext implements JsonSerializable {
         }
       }
     }
-    if (getPrivateAttributeCount() != o.getPrivateAttributeCount()) {
-      return false;
-    }
-    if (privateAttributes != null) {
-      for (AttributeRef a: privateAttributes) {
-        boolean found = false;
-        for (AttributeRef a1: o.privateAttributes) {
-          if (a1.equals(a)) {
-           found = true;
-           break;
-          }
-        }
-        if (!found) {
-          return false;
-        }
-      }
-    }
-    return true;
+    return Arrays.equals(sortedPrivateAttributes, o.sortedPrivateAttributes);
   }
   
   @Override
   public int hashCode() {
-    // This implementation of hashCode() is inefficient due to the need to create a predictable ordering
-    // of attribute names. That's necessary just for the sake of aligning with the behavior of equals(),
-    // which is insensitive to ordering. However, using an LDContext as a map key is not an anticipated
-    // or recommended use case.
+    // The context is immutable, so the hash is computed at most once, as in LDValueObject.
+    int h = hashCode;
+    if (h == 0) {
+      h = computeHashCode();
+      hashCode = h;
+    }
+    return h;
+  }
+  
+  private int computeHashCode() {
+    // Since equals() doesn't care about the order of custom attributes or private attributes, we
+    // combine their hashes by adding them, which gives the same result in any order without having
+    // to sort them first. The individual contexts in a multi-kind context are always sorted by kind,
+    // so they can simply be combined in order.
     int h = Objects.hash(error, kind, key, name, anonymous);
     if (multiContexts != null) {
       for (LDContext c: multiContexts) {
@@ -897,28 +969,72 @@ public final class LDContext implements JsonSerializable {
       }
     }
     if (attributes != null) {
-      String[] names = attributes.keySet().toArray(new String[attributes.size()]);
-      Arrays.sort(names);
-      for (String name: names) {
-        h = (h * 17 + name.hashCode()) * 17 + attributes.get(name).hashCode(); 
+      int ah = 0;
+      for (Map.Entry<String, LDValue> kv: attributes.entrySet()) {
+        ah += kv.getKey().hashCode() * 17 + kv.getValue().hashCode();
       }
+      h = h * 17 + ah;
     }
     if (privateAttributes != null) {
-      AttributeRef[] refs = privateAttributes.toArray(new AttributeRef[privateAttributes.size()]);
-      Arrays.sort(refs);;
-      for (AttributeRef a: refs) {
-        h = h * 17 + a.hashCode();
+      int ph = 0;
+      for (AttributeRef a: privateAttributes) {
+        ph += a.hashCode();
       }
+      h = h * 17 + ph;
     }
     return h;
   }
   
+  // Since createMultiInternal sorts the individual contexts by kind, we can use a binary search.
+  private int indexOfKind(String kindName) {
+    int low = 0, high = multiContexts.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = multiContexts[mid].kind.toString().compareTo(kindName);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+  
+  private static AttributeRef[] sortPrivateAttributes(List<AttributeRef> privateAttributes) {
+    if (privateAttributes == null || privateAttributes.isEmpty()) {
+      return null;
+    }
+    AttributeRef[] ret = privateAttributes.toArray(new AttributeRef[privateAttributes.size()]);
+    Arrays.sort(ret);
+    return ret;
+  }
+  
+  private LDValue getKindValue() {
+    LDValue v = kindValue;
+    if (v == null) {
+      v = LDValue.of(kind.toString());
+      kindValue = v;
+    }
+    return v;
+  }
+  
+  private LDValue getKeyValue() {
+    LDValue v = keyValue;
+    if (v == null) {
+      v = LDValue.of(key);
+      keyValue = v;
+    }
+    return v;
+  }
+  
   private LDValue getTopLevelAttribute(String attributeName) {
     switch (attributeName) {
     case "kind":
-      return LDValue.of(kind.toString());
+      return getKindValue();
     case "key":
-      return multiContexts == null ? LDValue.of(key) : LDValue.ofNull();
+      return multiContexts == null ? getKeyValue() : LDValue.ofNull();
     case "name":
       return LDValue.of(name);
     case "anonymous":
@@ -932,10 +1048,21 @@ public final class LDContext implements JsonSerializable {
     }
   }
   
-  private static String escapeKeyForFullyQualifiedKey(String key) {
+  private static void appendKindAndEscapedKey(StringBuilder sb, ContextKind kind, String key) {
+    sb.append(kind.toString()).append(':');
     // When building a FullyQualifiedKey, ':' and '%' are percent-escaped; we do not use a full
     // URL-encoding function because implementations of this are inconsistent across platforms.
-    return key.replace("%", "%25").replace(":", "%3A");
+    // Usually there's nothing to escape, so we copy the key in chunks between escaped characters
+    // rather than one character at a time.
+    int start = 0;
+    for (int i = 0; i < key.length(); i++) {
+      char ch = key.charAt(i);
+      if (ch == '%' || ch == ':') {
+        sb.append(key, start, i).append(ch == '%' ? "%25" : "%3A");
+        start = i + 1;
+      }
+    }
+    sb.append(key, start, key.length());
   }
   
   private static class ByKindComparator implements Comparator<LDContext> {
@@ -4,9 +4,13 @@ import com.google.gson.JsonIOException;
 import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.launchdarkly.sdk.LDContext.ATTR_ANONYMOUS;
@@ -70,28 +74,36 @@ final class LDContextTypeAdapter extends TypeAdapter<LDContext> {
 
   @Override
   public LDContext read(JsonReader in) throws IOException {
-    LDValue obj = requireValueType(LDValueTypeAdapter.INSTANCE.read(in), LDValueType.OBJECT, false, null);
-    ContextKind kind = null;
-    for (String key: obj.keys()) {
-      if (key.equals(ATTR_KIND)) {
-        kind = ContextKind.of(
-            requireValueType(obj.get(key), LDValueType.STRING, false, ATTR_KIND).stringValue());
+    // We read the JSON object token by token and build the LDContext directly, rather than first
+    // parsing the whole thing into an LDValue. The one complication is that we can't know which
+    // schema we're dealing with (single-kind, multi-kind, or old-style user) until we've seen the
+    // "kind" property, so any properties that appear before "kind" are buffered as LDValues. In
+    // the usual case where "kind" is the first property-- as it is in our own output-- nothing is
+    // buffered. Old-style user JSON never has a "kind", so all of its properties end up in the
+    // buffer.
+    requireToken(in, JsonToken.BEGIN_OBJECT, LDValueType.OBJECT, null);
+    in.beginObject();
+    BufferedProperties buffered = null;
+    String kindString = null;
+    while (in.peek() != JsonToken.END_OBJECT) {
+      String name = in.nextName();
+      if (name.equals(ATTR_KIND)) {
+        kindString = readString(in, false, ATTR_KIND);
         break;
       }
+      if (buffered == null) {
+        buffered = new BufferedProperties();
+      }
+      buffered.add(name, LDValueTypeAdapter.INSTANCE.read(in));
     }
     LDContext ret;
-    if (kind == null) {
-      ret = readOldUser(obj);
-    } else if (kind.equals(ContextKind.MULTI)) {
-      ContextMultiBuilder mb = LDContext.multiBuilder();
-      for (String key: obj.keys()) {
-        if (!key.equals(ATTR_KIND)) {
-          mb.add(readSingleKind(obj.get(key), ContextKind.of(key)));
-        }
-      }
-      ret = mb.build();
+    if (kindString == null) {
+      in.endObject();
+      ret = readOldUser(buffered);
+    } else if (ContextKind.of(kindString).equals(ContextKind.MULTI)) {
+      ret = readMultiKindProperties(in, buffered);
     } else {
-      ret = readSingleKind(obj, null);
+      ret = readSingleKindProperties(in, null, kindString, buffered);
     }
     if (!ret.isValid()) {
       throw new JsonParseException("invalid LDContext: " + ret.getError());
@@ -107,12 +119,22 @@ final class LDContextTypeAdapter extends TypeAdapter<LDContext> {
     return v;
   }
   
-  private static LDContext readOldUser(LDValue obj) throws JsonParseException {
-    requireValueType(obj, LDValueType.OBJECT, false, null);
+  // Applies all of the buffered properties using the old-style user schema. The custom attributes
+  // are applied first, so that a top-level property such as "name" takes precedence over a custom
+  // attribute with the same name regardless of the order in which they appeared.
+  private static LDContext readOldUser(BufferedProperties buffered) throws JsonParseException {
     ContextBuilder cb = LDContext.builder(null);
     cb.setAllowEmptyKey(true);
-    for (String key: obj.keys()) {
-      LDValue v = obj.get(key);
+    LDValue custom = buffered == null ? null : buffered.get(JSON_PROP_OLD_CUSTOM);
+    if (custom != null) {
+      for (String customKey: requireValueType(custom, LDValueType.OBJECT, true, JSON_PROP_OLD_CUSTOM).keys()) {
+        cb.set(customKey, custom.get(customKey));
+      }
+    }
+    int count = buffered == null ? 0 : buffered.size();
+    for (int i = 0; i < count; i++) {
+      String key = buffered.name(i);
+      LDValue v = buffered.value(i);
       switch (key) {
       case ATTR_KEY:
         cb.key(requireValueType(v, LDValueType.STRING, false, key).stringValue());
@@ -131,10 +153,7 @@ final class LDContextTypeAdapter extends TypeAdapter<LDContext> {
         }
         break;
       case JSON_PROP_OLD_CUSTOM:
-        for (String customKey: requireValueType(v, LDValueType.OBJECT, true, JSON_PROP_OLD_CUSTOM).keys()) {
-          cb.set(customKey, v.get(customKey));
-        }
-        break;
+        break; // already applied
       case "firstName":
       case "lastName":
       case "email":
@@ -150,48 +169,208 @@ final class LDContextTypeAdapter extends TypeAdapter<LDContext> {
     return cb.build();
   }
   
-  private static LDContext readSingleKind(LDValue obj, ContextKind kind) throws JsonParseException {
-    requireValueType(obj, LDValueType.OBJECT, false, kind == null ? null : kind.toString());
+  private static LDContext readMultiKindProperties(JsonReader in, BufferedProperties buffered) throws IOException {
+    ContextMultiBuilder mb = LDContext.multiBuilder();
+    if (buffered != null) {
+      for (int i = 0; i < buffered.size(); i++) {
+        mb.add(readSingleKind(buffered.value(i), ContextKind.of(buffered.name(i))));
+      }
+    }
+    while (in.peek() != JsonToken.END_OBJECT) {
+      String name = in.nextName();
+      if (name.equals(ATTR_KIND)) {
+        in.skipValue();
+        continue;
+      }
+      ContextKind kind = ContextKind.of(name);
+      requireToken(in, JsonToken.BEGIN_OBJECT, LDValueType.OBJECT, kind.toString());
+      in.beginObject();
+      mb.add(readSingleKindProperties(in, kind, null, null));
+    }
+    in.endObject();
+    return mb.build();
+  }
+
+  // Reads the rest of a single-kind context object, whose BEGIN_OBJECT token has already been
+  // consumed. The kind is either known in advance (for a context nested inside a multi-kind
+  // context), or was already read from a "kind" property (kindString); "buffered" contains any
+  // properties that were read before we knew this was a single-kind context.
+  private static LDContext readSingleKindProperties(JsonReader in, ContextKind kind, String kindString,
+      BufferedProperties buffered) throws IOException {
     ContextBuilder cb = LDContext.builder("").kind(kind);
-    boolean hasNonEmptyKind = kind != null;
-    for (String key: obj.keys()) {
-      LDValue v = obj.get(key);
-      switch (key) {
+    if (buffered != null) {
+      for (int i = 0; i < buffered.size(); i++) {
+        applySingleKindProperty(cb, buffered.name(i), buffered.value(i));
+      }
+    }
+    while (in.peek() != JsonToken.END_OBJECT) {
+      String name = in.nextName();
+      switch (name) {
       case ATTR_KIND:
-        String s = requireValueType(v, LDValueType.STRING, false, key).stringValue();
-        if (!s.isEmpty()) {
-          // We need this extra check because the builder, when used programmatically, treats an
-          // unset/emty kind the same as ContextKind.DEFAULT-- but that's not the behavior we
-          // want for JSON.
-          hasNonEmptyKind = true;
-          cb.kind(s);
-        }
+        kindString = readString(in, false, name);
         break;
       case ATTR_KEY:
-        cb.key(requireValueType(v, LDValueType.STRING, false, key).stringValue());
+        cb.key(readString(in, false, name));
         break;
       case ATTR_NAME:
-        cb.name(requireValueType(v, LDValueType.STRING, true, key).stringValue());
+        cb.name(readString(in, true, name));
         break;
       case ATTR_ANONYMOUS:
-        cb.anonymous(requireValueType(v, LDValueType.BOOLEAN, true, key).booleanValue());
-        break;
-      case JSON_PROP_META:
-        LDValue meta = requireValueType(v, LDValueType.OBJECT, true, key);
-        LDValue privateAttrs = requireValueType(meta.get(JSON_PROP_PRIVATE),
-            LDValueType.ARRAY, true, JSON_PROP_PRIVATE);
-        for (LDValue privateAttr: privateAttrs.values()) {
-          cb.privateAttributes(AttributeRef.fromPath(
-              requireValueType(privateAttr, LDValueType.STRING, false, JSON_PROP_PRIVATE).stringValue()));
-        }
+        cb.anonymous(readBoolean(in, true, name));
         break;
       default:
-        cb.set(key, v); 
+        applySingleKindProperty(cb, name, LDValueTypeAdapter.INSTANCE.read(in));
       }
     }
-    if (!hasNonEmptyKind) {
+    in.endObject();
+    return finishSingleKind(cb, kind, kindString);
+  }
+  
+  // Used only if a nested context in a multi-kind context had to be buffered as an LDValue.
+  private static LDContext readSingleKind(LDValue obj, ContextKind kind) throws JsonParseException {
+    requireValueType(obj, LDValueType.OBJECT, false, kind == null ? null : kind.toString());
+    ContextBuilder cb = LDContext.builder("").kind(kind);
+    String kindString = null;
+    for (String key: obj.keys()) {
+      LDValue v = obj.get(key);
+      if (key.equals(ATTR_KIND)) {
+        kindString = requireValueType(v, LDValueType.STRING, false, key).stringValue();
+      } else {
+        applySingleKindProperty(cb, key, v);
+      }
+    }
+    return finishSingleKind(cb, kind, kindString);
+  }
+  
+  private static void applySingleKindProperty(ContextBuilder cb, String key, LDValue v) throws JsonParseException {
+    switch (key) {
+    case ATTR_KEY:
+      cb.key(requireValueType(v, LDValueType.STRING, false, key).stringValue());
+      break;
+    case ATTR_NAME:
+      cb.name(requireValueType(v, LDValueType.STRING, true, key).stringValue());
+      break;
+    case ATTR_ANONYMOUS:
+      cb.anonymous(requireValueType(v, LDValueType.BOOLEAN, true, key).booleanValue());
+      break;
+    case JSON_PROP_META:
+      LDValue meta = requireValueType(v, LDValueType.OBJECT, true, key);
+      LDValue privateAttrs = requireValueType(meta.get(JSON_PROP_PRIVATE),
+          LDValueType.ARRAY, true, JSON_PROP_PRIVATE);
+      for (LDValue privateAttr: privateAttrs.values()) {
+        cb.privateAttributes(AttributeRef.fromPath(
+            requireValueType(privateAttr, LDValueType.STRING, false, JSON_PROP_PRIVATE).stringValue()));
+      }
+      break;
+    default:
+      cb.set(key, v); 
+    }
+  }
+  
+  private static LDContext finishSingleKind(ContextBuilder cb, ContextKind kind, String kindString) {
+    if (kindString != null && !kindString.isEmpty()) {
+      // We need this extra check because the builder, when used programmatically, treats an
+      // unset/empty kind the same as ContextKind.DEFAULT-- but that's not the behavior we
+      // want for JSON.
+      cb.kind(kindString);
+    } else if (kind == null) {
       return LDContext.failed(Errors.CONTEXT_KIND_CANNOT_BE_EMPTY);
     }
     return cb.build();
   }
+  
+  // The following token-level helpers produce the same error messages as requireValueType, so
+  // that the result of parsing does not depend on whether a property was buffered or not.
+  
+  private static void requireToken(JsonReader in, JsonToken token, LDValueType t, String propName)
+      throws IOException {
+    JsonToken actual = in.peek();
+    if (actual != token) {
+      throw typeError(t, actual, propName);
+    }
+  }
+  
+  private static String readString(JsonReader in, boolean nullable, String propName) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.STRING) {
+      return in.nextString();
+    }
+    if (nullable && token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    throw typeError(LDValueType.STRING, token, propName);
+  }
+
+  private static boolean readBoolean(JsonReader in, boolean nullable, String propName) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.BOOLEAN) {
+      return in.nextBoolean();
+    }
+    if (nullable && token == JsonToken.NULL) {
+      in.nextNull();
+      return false;
+    }
+    throw typeError(LDValueType.BOOLEAN, token, propName);
+  }
+  
+  private static JsonParseException typeError(LDValueType t, JsonToken actual, String propName) {
+    return new JsonParseException("expected " + t + ", found " + valueTypeOfToken(actual) +
+        (propName == null ? "" : (" for " + propName)));
+  }
+  
+  private static LDValueType valueTypeOfToken(JsonToken token) {
+    switch (token) {
+    case BEGIN_ARRAY:
+      return LDValueType.ARRAY;
+    case BEGIN_OBJECT:
+      return LDValueType.OBJECT;
+    case BOOLEAN:
+      return LDValueType.BOOLEAN;
+    case NUMBER:
+      return LDValueType.NUMBER;
+    case STRING:
+      return LDValueType.STRING;
+    default:
+      // NULL is the only other token that can appear where a value is expected
+      return LDValueType.NULL;
+    }
+  }
+  
+  // Properties that were read before we knew which schema to use, in the order they were read. This
+  // is cheaper than building an LDValue object, since we only ever need to iterate over them. As in
+  // an object, if a name appears more than once, the last value wins.
+  private static final class BufferedProperties {
+    private final List<String> names = new ArrayList<>();
+    private final List<LDValue> values = new ArrayList<>();
+    private final Map<String, Integer> indexes = new HashMap<>();
+    
+    void add(String name, LDValue value) {
+      Integer i = indexes.get(name);
+      if (i != null) {
+        values.set(i, value);
+        return;
+      }
+      indexes.put(name, names.size());
+      names.add(name);
+      values.add(value);
+    }
+    
+    LDValue get(String name) {
+      Integer i = indexes.get(name);
+      return i == null ? null : values.get(i);
+    }
+    
+    int size() {
+      return names.size();
+    }
+    
+    String name(int i) {
+      return names.get(i);
+    }
+    
+    LDValue value(int i) {
+      return values.get(i);
+    }
+  }
 }
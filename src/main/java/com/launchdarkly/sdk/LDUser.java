@@ -77,7 +77,8 @@ public class LDUser implements JsonSerializable {
   final boolean anonymous;
   final LDValue country;
   final Map<UserAttribute, LDValue> custom;
-  Set<UserAttribute> privateAttributeNames;
+  final Set<UserAttribute> privateAttributeNames;
+  LDContext convertedContext; // set by LDContext.fromUser
 
   protected LDUser(Builder builder) {
     this.key = LDValue.of(builder.key);
@@ -293,6 +294,8 @@ public class LDUser implements JsonSerializable {
     private boolean anonymous = false;
     private Map<UserAttribute, LDValue> custom;
     private Set<UserAttribute> privateAttributes;
+    private boolean copyOnWriteCustom;
+    private boolean copyOnWritePrivateAttributes;
 
     /**
      * Creates a builder with the specified key.
@@ -576,7 +579,10 @@ public class LDUser implements JsonSerializable {
     }
     
     private Builder customInternal(UserAttribute a, LDValue v) {
-      if (custom == null) {
+      if (copyOnWriteCustom) {
+        custom = new HashMap<>(custom);
+        copyOnWriteCustom = false;
+      } else if (custom == null) {
         custom = new HashMap<>();
       }
       custom.put(a, LDValue.normalize(v));
@@ -659,7 +665,10 @@ public class LDUser implements JsonSerializable {
     }
 
     void addPrivate(UserAttribute attribute) {
-      if (privateAttributes == null) {
+      if (copyOnWritePrivateAttributes) {
+        privateAttributes = new LinkedHashSet<>(privateAttributes);
+        copyOnWritePrivateAttributes = false;
+      } else if (privateAttributes == null) {
         privateAttributes = new LinkedHashSet<>(); // LinkedHashSet preserves insertion order, for test determinacy
       }
       privateAttributes.add(attribute);
@@ -671,6 +680,10 @@ public class LDUser implements JsonSerializable {
      * @return the {@link LDUser} configured by this builder
      */
     public LDUser build() {
+      // The LDUser keeps references to these collections rather than copying them, so if the builder
+      // is modified after this, it needs to make new copies first.
+      copyOnWriteCustom = custom != null;
+      copyOnWritePrivateAttributes = privateAttributes != null;
       return new LDUser(this);
     }
   }
@@ -44,6 +44,10 @@ import static java.util.Collections.emptyList;
  */
 @JsonAdapter(LDValueTypeAdapter.class)
 public abstract class LDValue implements JsonSerializable {
+  // Arrays and objects with at least this many elements remember their JSON representation once
+  // toJsonString() has been called; see LDValueObject.toJsonString().
+  static final int MIN_SIZE_FOR_CACHED_JSON = 16;
+
   /**
    * Returns the same value if non-null, or {@link #ofNull()} if null.
    * 
@@ -81,23 +85,24 @@ public abstract class LDValue implements JsonSerializable {
    * @return an LDValue containing that value
    */
   public static LDValue of(int value) {
-    return LDValueNumber.fromDouble(value);
+    return LDValueLong.fromLong(value);
   }
 
   /**
    * Returns an instance for a numeric value.
    * <p>
-   * Note that the LaunchDarkly service, and most of the SDKs, represent numeric values internally
-   * in 64-bit floating-point, which has slightly less precision than a signed 64-bit {@code long};
-   * therefore, the full range of {@code long} values cannot be accurately represented. If you need
-   * to set a context attribute to a numeric value with more significant digits than will fit in a
-   * {@code double}, it is best to encode it as a string.
+   * The full precision of the {@code long} value is retained by {@link LDValue}, and is preserved in
+   * JSON serialization. However, the LaunchDarkly service, and most of the SDKs, represent numeric
+   * values internally in 64-bit floating-point, which has slightly less precision than a signed 64-bit
+   * {@code long}; therefore, numbers with more significant digits than will fit in a {@code double}
+   * may not be compared accurately in flag evaluations. If you need to set a context attribute to such
+   * a value and use it in targeting rules, it is best to encode it as a string.
    * 
    * @param value a long integer numeric value
    * @return an LDValue containing that value
    */
   public static LDValue of(long value) {
-    return LDValueNumber.fromDouble(value);
+    return LDValueLong.fromLong(value);
   }
   
   /**
@@ -234,7 +239,9 @@ public abstract class LDValue implements JsonSerializable {
    * <p>
    * JSON does not have separate types for integer and floating-point values; they are both just
    * numbers. This method returns true if and only if the actual numeric value has no fractional
-   * component, so {@code LDValue.of(2).isInt()} and {@code LDValue.of(2.0f).isInt()} are both true.
+   * component and is within the range of a {@code long}, so {@code LDValue.of(2).isInt()} and
+   * {@code LDValue.of(2.0f).isInt()} are both true. Such values are stored without loss of precision,
+   * so {@link #longValue()} returns the exact value.
    * 
    * @return {@code true} if this is an integer value
    */
@@ -381,6 +388,52 @@ public abstract class LDValue implements JsonSerializable {
     return ofNull();
   }
   
+  /**
+   * Returns a copy of this array with the element at the specified index replaced. Returns this
+   * same value, unchanged, if this is not an array or if the index is out of range.
+   * <p>
+   * {@link LDValue} is immutable, so this value itself is not modified. The new array shares most
+   * of its internal storage with this one, so this takes O(log n) time rather than copying all of
+   * the elements as {@link #buildArray()} would.
+   * 
+   * @param index the array index
+   * @param value the new element value; null is equivalent to {@link #ofNull()}
+   * @return an array with the new element, or this same value
+   */
+  public LDValue withIndex(int index, LDValue value) {
+    return this;
+  }
+  
+  /**
+   * Returns a copy of this object with a property added or replaced. Returns this same value,
+   * unchanged, if this is not an object or if {@code name} is null.
+   * <p>
+   * {@link LDValue} is immutable, so this value itself is not modified. The new object shares most
+   * of its internal storage with this one, so this takes O(log n) time rather than copying all of
+   * the properties as {@link #buildObject()} would.
+   * 
+   * @param name the property name
+   * @param value the new property value; null is equivalent to {@link #ofNull()}
+   * @return an object with the new property, or this same value
+   */
+  public LDValue with(String name, LDValue value) {
+    return this;
+  }
+  
+  /**
+   * Returns a copy of this object with a property removed. Returns this same value, unchanged, if
+   * this is not an object or if it has no such property.
+   * <p>
+   * As with {@link #with(String, LDValue)}, the new object shares most of its internal storage
+   * with this one.
+   * 
+   * @param name the property name
+   * @return an object without the property, or this same value
+   */
+  public LDValue without(String name) {
+    return this;
+  }
+  
   /**
    * Converts this value to its JSON serialization.
    * <p>
@@ -395,10 +448,6 @@ public abstract class LDValue implements JsonSerializable {
   
   abstract void write(JsonWriter writer) throws IOException;
   
-  static boolean isInteger(double value) {
-    return value == (double)((int)value);
-  }
-  
   /**
    * Returns a string representation of this value.
    * <p>
@@ -429,11 +478,17 @@ public abstract class LDValue implements JsonSerializable {
       if (getType() == other.getType()) {
         switch (getType()) {
         case NULL: return other.isNull(); // COVERAGE: won't hit this case because ofNull() is a singleton, so (o == this) will be true
-        case NUMBER: return doubleValue() == other.doubleValue();
+        case NUMBER:
+          // Integers are always represented as longs (see LDValueLong), so an integer can never be
+          // equal to a non-integer, and two integers are compared exactly rather than as doubles.
+          if (isInt()) {
+            return other.isInt() && longValue() == other.longValue();
+          }
+          return !other.isInt() && doubleValue() == other.doubleValue();
         case BOOLEAN: return false; // boolean true and false are singletons, so if o != this, they're unequal
         case STRING: return stringValue().equals(other.stringValue());
         case ARRAY:
-          if (size() != other.size()) {
+          if (size() != other.size() || hashCodesDiffer(other)) {
             return false;
           }
           for (int i = 0; i < size(); i++) {
@@ -443,7 +498,7 @@ public abstract class LDValue implements JsonSerializable {
           }
           return true; 
         case OBJECT:
-          if (size() != other.size()) {
+          if (size() != other.size() || hashCodesDiffer(other)) {
             return false;
           }
           for (String name: keys()) {
@@ -460,11 +515,26 @@ public abstract class LDValue implements JsonSerializable {
     return false;
   }
   
+  // Returns the hash code if this value has already computed and cached it, or zero otherwise. Only
+  // arrays and objects cache their hash codes.
+  int cachedHashCode() {
+    return 0;
+  }
+  
+  // Used by equals() to detect a mismatch cheaply, but only if both hash codes are already known;
+  // we don't want to compute a hash code just to compare two values once.
+  private boolean hashCodesDiffer(LDValue other) {
+    int h1 = cachedHashCode(), h2 = other.cachedHashCode();
+    return h1 != 0 && h2 != 0 && h1 != h2;
+  }
+  
   @Override
   public int hashCode() {
     switch (getType()) {
     case BOOLEAN: return booleanValue() ? 1 : 0;
-    case NUMBER: return intValue();
+    case NUMBER:
+      long n = longValue();
+      return (int)(n ^ (n >>> 32));
     case STRING: return stringValue().hashCode();
     case ARRAY:
       int ah = 0;
@@ -473,9 +543,10 @@ public abstract class LDValue implements JsonSerializable {
       }
       return ah;
     case OBJECT:
+      // This must not depend on iteration order, which can differ between two equal objects
       int oh = 0;
       for (String name: keys()) {
-        oh = (oh * 31 + name.hashCode()) * 31 + get(name).hashCode();
+        oh += name.hashCode() * 31 + get(name).hashCode();
       }
       return oh;
     default:
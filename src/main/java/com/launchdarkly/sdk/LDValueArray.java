@@ -4,52 +4,202 @@ import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-
-import static java.util.Collections.unmodifiableList;
+import java.util.NoSuchElementException;
 
 @JsonAdapter(LDValueTypeAdapter.class)
 final class LDValueArray extends LDValue {
-  private static final LDValueArray EMPTY = new LDValueArray(Collections.<LDValue>emptyList());
-  private final List<LDValue> list;
+  // The elements are stored in a tree whose nodes each have up to 32 children, and whose leaves are
+  // LDValue[] arrays of up to 32 elements; an array with 32 or fewer elements is a single leaf. The
+  // bits of an element's index, 5 at a time from the top, give the path to it. Since only the nodes
+  // on that path have to be copied, withIndex() takes O(log n) time and the new array shares all
+  // other nodes with the original.
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  private static final LDValueArray EMPTY = new LDValueArray(new LDValue[0], 0, 0);
+
+  private final Object[] root; // an LDValue[] if shift is 0, otherwise an Object[] of child nodes
+  private final int shift; // BITS times the number of levels above the leaves
+  private final int size;
+  private int hashCode; // zero if not yet computed
+  private String json; // null if not yet computed, or if the array is too small to cache it
 
   static LDValueArray fromList(List<LDValue> list) {
-    return list == null || list.isEmpty() ? EMPTY : new LDValueArray(list);
+    if (list == null || list.isEmpty()) {
+      return EMPTY;
+    }
+    // The list is copied, so the caller is free to modify it afterward
+    int size = list.size();
+    int count = (size + MASK) >>> BITS;
+    Object[] nodes = new Object[count];
+    for (int n = 0; n < count; n++) {
+      int start = n << BITS;
+      LDValue[] leaf = new LDValue[Math.min(WIDTH, size - start)];
+      for (int i = 0; i < leaf.length; i++) {
+        leaf[i] = normalize(list.get(start + i));
+      }
+      nodes[n] = leaf;
+    }
+    int shift = 0;
+    while (count > 1) {
+      int parentCount = (count + MASK) >>> BITS;
+      Object[] parents = new Object[parentCount];
+      for (int p = 0; p < parentCount; p++) {
+        Object[] node = new Object[Math.min(WIDTH, count - (p << BITS))];
+        System.arraycopy(nodes, p << BITS, node, 0, node.length);
+        parents[p] = node;
+      }
+      nodes = parents;
+      count = parentCount;
+      shift += BITS;
+    }
+    return new LDValueArray((Object[])nodes[0], shift, size);
   }
 
-  private LDValueArray(List<LDValue> list) {
-    this.list = unmodifiableList(list);
+  private LDValueArray(Object[] root, int shift, int size) {
+    this.root = root;
+    this.shift = shift;
+    this.size = size;
   }
-  
+
   public LDValueType getType() {
     return LDValueType.ARRAY;
   }
-  
+
   @Override
   public int size() {
-    return list.size();
+    return size;
   }
-  
+
   @Override
   public Iterable<LDValue> values() {
-    return list;
+    if (shift == 0) {
+      return Collections.unmodifiableList(Arrays.asList((LDValue[])root));
+    }
+    return new Iterable<LDValue>() {
+      @Override
+      public Iterator<LDValue> iterator() {
+        return new ElementIterator();
+      }
+    };
   }
-  
+
   @Override
   public LDValue get(int index) {
-    if (index >= 0 && index < list.size()) {
-      return list.get(index);
+    if (index >= 0 && index < size) {
+      return leafFor(index)[index & MASK];
     }
     return ofNull();
   }
 
+  @Override
+  public LDValue withIndex(int index, LDValue value) {
+    if (index < 0 || index >= size) {
+      return this;
+    }
+    LDValue v = normalize(value);
+    if (leafFor(index)[index & MASK] == v) {
+      return this;
+    }
+    return new LDValueArray(copyPathWith(root, shift, index, v), shift, size);
+  }
+
+  @Override
+  public int hashCode() {
+    // computed at most once, as in LDValueObject
+    int h = hashCode;
+    if (h == 0) {
+      h = super.hashCode();
+      hashCode = h;
+    }
+    return h;
+  }
+
+  @Override
+  int cachedHashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toJsonString() {
+    // cached for large arrays, as in LDValueObject
+    String s = json;
+    if (s == null) {
+      s = super.toJsonString();
+      if (size >= MIN_SIZE_FOR_CACHED_JSON) {
+        json = s;
+      }
+    }
+    return s;
+  }
+
+  @Override
+  public String toString() {
+    String s = json; // doesn't fill the cache, as in LDValueObject
+    return s == null ? super.toJsonString() : s;
+  }
+
   @Override
   void write(JsonWriter writer) throws IOException {
+    String s = json;
+    if (s != null && Helpers.canWriteRawJson(writer)) {
+      writer.jsonValue(s); // as in LDValueObject
+      return;
+    }
     writer.beginArray();
-    for (LDValue v: list) {
+    for (LDValue v: values()) {
       v.write(writer);
     }
     writer.endArray();
   }
+
+  private LDValue[] leafFor(int index) {
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Object[])node[(index >>> level) & MASK];
+    }
+    return (LDValue[])node;
+  }
+
+  private static Object[] copyPathWith(Object[] node, int level, int index, LDValue value) {
+    Object[] copy = node.clone();
+    if (level == 0) {
+      copy[index & MASK] = value;
+    } else {
+      int i = (index >>> level) & MASK;
+      copy[i] = copyPathWith((Object[])node[i], level - BITS, index, value);
+    }
+    return copy;
+  }
+
+  private final class ElementIterator implements Iterator<LDValue> {
+    private int index;
+    private LDValue[] leaf;
+
+    @Override
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    @Override
+    public LDValue next() {
+      if (index >= size) {
+        throw new NoSuchElementException();
+      }
+      if ((index & MASK) == 0) {
+        leaf = leafFor(index);
+      }
+      return leaf[index++ & MASK];
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException(); // COVERAGE: values() is read-only
+    }
+  }
 }
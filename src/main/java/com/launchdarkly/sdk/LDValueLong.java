@@ -0,0 +1,88 @@
+package com.launchdarkly.sdk;
+
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+// A numeric value with no fractional component, stored as a long so that it does not lose precision
+// above 2^53 and can be written without going through double formatting. Any double whose value is
+// an integer in the range of a long is also stored this way (see LDValueNumber.fromDouble), so
+// LDValueNumber only ever holds non-integer values or values that are too big for a long; that means
+// two numbers are equal only if they are both represented by the same class.
+@JsonAdapter(LDValueTypeAdapter.class)
+final class LDValueLong extends LDValue {
+  // Small integers such as variation indexes, counters, and typical rule values are very common, so
+  // instances for them are preallocated, the same way Integer.valueOf() does.
+  private static final int MIN_CACHED = -128;
+  private static final int MAX_CACHED = 1023;
+  private static final LDValueLong[] CACHE = makeCache();
+
+  private final long value;
+
+  static LDValueLong fromLong(long value) {
+    if (value >= MIN_CACHED && value <= MAX_CACHED) {
+      return CACHE[(int)value - MIN_CACHED];
+    }
+    return new LDValueLong(value);
+  }
+
+  private LDValueLong(long value) {
+    this.value = value;
+  }
+
+  public LDValueType getType() {
+    return LDValueType.NUMBER;
+  }
+
+  @Override
+  public boolean isNumber() {
+    return true;
+  }
+
+  @Override
+  public boolean isInt() {
+    return true;
+  }
+
+  @Override
+  public int intValue() {
+    // This is consistent with the behavior of (int) applied to a double, which is what intValue()
+    // has always done, rather than with (int) applied to a long, which would discard the high bits.
+    return value > Integer.MAX_VALUE ? Integer.MAX_VALUE :
+      (value < Integer.MIN_VALUE ? Integer.MIN_VALUE : (int)value);
+  }
+
+  @Override
+  public long longValue() {
+    return value;
+  }
+
+  @Override
+  public float floatValue() {
+    return (float)value;
+  }
+
+  @Override
+  public double doubleValue() {
+    return (double)value;
+  }
+
+  @Override
+  public String toJsonString() {
+    return String.valueOf(value);
+  }
+
+  @Override
+  void write(JsonWriter writer) throws IOException {
+    writer.value(value);
+  }
+
+  private static LDValueLong[] makeCache() {
+    LDValueLong[] ret = new LDValueLong[MAX_CACHED - MIN_CACHED + 1];
+    for (int i = 0; i < ret.length; i++) {
+      ret[i] = new LDValueLong(i + MIN_CACHED);
+    }
+    return ret;
+  }
+}
@@ -5,33 +5,40 @@ import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
 
+// A numeric value that is not an integer in the range of a long. Integer values are represented by
+// LDValueLong instead.
 @JsonAdapter(LDValueTypeAdapter.class)
 final class LDValueNumber extends LDValue {
-  private static final LDValueNumber ZERO = new LDValueNumber(0);
+  // Bounds of the range of doubles that can be converted to a long without loss. The upper bound is
+  // exclusive: 2^63 itself is not a valid long, but (long) would silently clamp it to Long.MAX_VALUE.
+  private static final double MIN_LONG_AS_DOUBLE = -0x1p63;
+  private static final double MAX_LONG_AS_DOUBLE = 0x1p63;
+
   private final double value;
-  
-  static LDValueNumber fromDouble(double value) {
-    return value == 0 ? ZERO : new LDValueNumber(value);
+
+  static LDValue fromDouble(double value) {
+    if (value >= MIN_LONG_AS_DOUBLE && value < MAX_LONG_AS_DOUBLE) {
+      long longValue = (long)value;
+      if (longValue == value) {
+        return LDValueLong.fromLong(longValue);
+      }
+    }
+    return new LDValueNumber(value);
   }
-  
+
   private LDValueNumber(double value) {
     this.value = value;
   }
-  
+
   public LDValueType getType() {
     return LDValueType.NUMBER;
   }
-  
+
   @Override
   public boolean isNumber() {
     return true;
   }
-  
-  @Override
-  public boolean isInt() {
-    return isInteger(value);
-  }
-  
+
   @Override
   public int intValue() {
     return (int)value;
@@ -41,7 +48,7 @@ final class LDValueNumber extends LDValue {
   public long longValue() {
     return (long)value;
   }
-  
+
   @Override
   public float floatValue() {
     return (float)value;
@@ -54,15 +61,11 @@ final class LDValueNumber extends LDValue {
 
   @Override
   public String toJsonString() {
-    return isInt() ? String.valueOf(intValue()) : String.valueOf(value);
+    return String.valueOf(value);
   }
-  
+
   @Override
   void write(JsonWriter writer) throws IOException {
-    if (isInt()) {
-      writer.value(intValue());
-    } else {
-      writer.value(value);
-    }
+    writer.value(value);
   }
 }
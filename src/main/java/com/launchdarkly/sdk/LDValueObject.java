@@ -4,54 +4,275 @@ import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 
 @JsonAdapter(LDValueTypeAdapter.class)
 final class LDValueObject extends LDValue {
-  private static final LDValueObject EMPTY = new LDValueObject(Collections.<String, LDValue>emptyMap());
-  private final Map<String, LDValue> map;
-  
+  // Objects with no more than this many properties are stored in a compact form, as parallel arrays
+  // of keys and values sorted by key. Most JSON objects in flag data are this small, and the arrays
+  // take much less memory than a hash table. Larger objects are stored in a HashTrie, which allows
+  // with() and without() to share most of the original object's structure.
+  // Iteration order is unspecified for LDValue objects, so it doesn't matter that compact objects
+  // iterate in key order while larger ones iterate in hash order.
+  private static final int MAX_COMPACT_SIZE = 8;
+
+  // For compact objects this small, a linear scan is faster than a binary search.
+  private static final int MAX_LINEAR_SEARCH_SIZE = 4;
+
+  private static final LDValueObject EMPTY = new LDValueObject(new String[0], new LDValue[0]);
+
+  private final HashTrie trie; // null if compact
+  private final String[] keys; // null if not compact
+  private final LDValue[] values; // null if not compact
+  private int hashCode; // zero if not yet computed
+  private String json; // null if not yet computed, or if the object is too small to cache it
+
   static LDValueObject fromMap(Map<String, LDValue> map) {
-    return map.isEmpty() ? EMPTY : new LDValueObject(map);
+    int size = map.size();
+    if (size == 0) {
+      return EMPTY;
+    }
+    if (size > MAX_COMPACT_SIZE || map.containsKey(null)) {
+      return new LDValueObject(HashTrie.fromMap(map));
+    }
+    String[] keys = new String[size];
+    LDValue[] values = new LDValue[size];
+    int n = 0;
+    for (Map.Entry<String, LDValue> e: map.entrySet()) {
+      insertSorted(keys, values, n++, e.getKey(), e.getValue());
+    }
+    return new LDValueObject(keys, values);
   }
-  
-  private LDValueObject(Map<String, LDValue> map) {
-    this.map = map;
+
+  private static LDValueObject fromTrie(HashTrie trie) {
+    int size = trie.size();
+    if (size == 0) {
+      return EMPTY;
+    }
+    if (size > MAX_COMPACT_SIZE || trie.get(null) != null) {
+      return new LDValueObject(trie);
+    }
+    String[] keys = new String[size];
+    LDValue[] values = new LDValue[size];
+    int n = 0;
+    for (HashTrie.Cursor c = trie.cursor(); c.next();) {
+      insertSorted(keys, values, n++, c.key(), c.value());
+    }
+    return new LDValueObject(keys, values);
   }
-  
+
+  // Adds an entry to the first n elements of the arrays, which are already sorted, keeping them
+  // sorted. This is an insertion sort, which is the fastest way to sort this few items.
+  private static void insertSorted(String[] keys, LDValue[] values, int n, String key, LDValue value) {
+    int i = n;
+    while (i > 0 && keys[i - 1].compareTo(key) > 0) {
+      keys[i] = keys[i - 1];
+      values[i] = values[i - 1];
+      i--;
+    }
+    keys[i] = key;
+    values[i] = value;
+  }
+
+  private LDValueObject(HashTrie trie) {
+    this.trie = trie;
+    this.keys = null;
+    this.values = null;
+  }
+
+  private LDValueObject(String[] keys, LDValue[] values) {
+    this.trie = null;
+    this.keys = keys;
+    this.values = values;
+  }
+
   public LDValueType getType() {
     return LDValueType.OBJECT;
   }
-  
+
   @Override
   public int size() {
-    return map.size();
+    return trie == null ? keys.length : trie.size();
   }
-  
+
   @Override
   public Iterable<String> keys() {
-    return map.keySet();
+    if (trie == null) {
+      return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+    return new Iterable<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return trie.keyIterator();
+      }
+    };
   }
-  
+
   @Override
   public Iterable<LDValue> values() {
-    return map.values();
+    if (trie == null) {
+      return Collections.unmodifiableList(Arrays.asList(values));
+    }
+    return new Iterable<LDValue>() {
+      @Override
+      public Iterator<LDValue> iterator() {
+        return trie.valueIterator();
+      }
+    };
   }
-  
+
   @Override
   public LDValue get(String name) {
-    LDValue v = map.get(name);
+    LDValue v;
+    if (trie == null) {
+      int i = indexOfKey(name);
+      v = i < 0 ? null : values[i];
+    } else {
+      v = trie.get(name);
+    }
     return v == null ? ofNull() : v;
   }
 
+  @Override
+  public LDValue with(String name, LDValue value) {
+    if (name == null) {
+      return this;
+    }
+    LDValue v = normalize(value);
+    if (trie != null) {
+      HashTrie newTrie = trie.with(name, v);
+      return newTrie == trie ? this : new LDValueObject(newTrie);
+    }
+    int i = Arrays.binarySearch(keys, name);
+    if (i >= 0) {
+      if (values[i] == v) {
+        return this;
+      }
+      LDValue[] newValues = values.clone();
+      newValues[i] = v;
+      return new LDValueObject(keys, newValues); // the keys array is immutable, so it can be shared
+    }
+    if (keys.length == MAX_COMPACT_SIZE) {
+      return new LDValueObject(HashTrie.fromArrays(keys, values).with(name, v));
+    }
+    i = -(i + 1);
+    String[] newKeys = new String[keys.length + 1];
+    LDValue[] newValues = new LDValue[keys.length + 1];
+    System.arraycopy(keys, 0, newKeys, 0, i);
+    System.arraycopy(values, 0, newValues, 0, i);
+    newKeys[i] = name;
+    newValues[i] = v;
+    System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+    System.arraycopy(values, i, newValues, i + 1, keys.length - i);
+    return new LDValueObject(newKeys, newValues);
+  }
+
+  @Override
+  public LDValue without(String name) {
+    if (name == null) {
+      return this;
+    }
+    if (trie != null) {
+      HashTrie newTrie = trie.without(name);
+      return newTrie == trie ? this : fromTrie(newTrie);
+    }
+    int i = indexOfKey(name);
+    if (i < 0) {
+      return this;
+    }
+    if (keys.length == 1) {
+      return EMPTY;
+    }
+    String[] newKeys = new String[keys.length - 1];
+    LDValue[] newValues = new LDValue[keys.length - 1];
+    System.arraycopy(keys, 0, newKeys, 0, i);
+    System.arraycopy(values, 0, newValues, 0, i);
+    System.arraycopy(keys, i + 1, newKeys, i, newKeys.length - i);
+    System.arraycopy(values, i + 1, newValues, i, newKeys.length - i);
+    return new LDValueObject(newKeys, newValues);
+  }
+
+  @Override
+  public int hashCode() {
+    // Since the value is immutable, we only need to compute the hash once. This is the same racy but
+    // safe idiom that java.lang.String uses: a hash that happens to be zero is just recomputed.
+    int h = hashCode;
+    if (h == 0) {
+      h = super.hashCode();
+      hashCode = h;
+    }
+    return h;
+  }
+
+  @Override
+  int cachedHashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toJsonString() {
+    // A large object whose JSON has been asked for, such as a flag variation that the SDK serializes
+    // into every analytics event, keeps it so that write() can copy it instead of walking the whole
+    // tree again. This uses the same racy idiom as hashCode(); a String is immutable, so the worst a
+    // race can do is compute it twice. Small objects aren't worth the memory, and are cheap to
+    // serialize anyway.
+    String s = json;
+    if (s == null) {
+      s = super.toJsonString();
+      if (size() >= MIN_SIZE_FOR_CACHED_JSON) {
+        json = s;
+      }
+    }
+    return s;
+  }
+
+  @Override
+  public String toString() {
+    // Unlike toJsonString(), this doesn't cache anything, so that logging a value doesn't make it keep
+    // a copy of its JSON.
+    String s = json;
+    return s == null ? super.toJsonString() : s;
+  }
+
   @Override
   void write(JsonWriter writer) throws IOException {
+    String s = json;
+    if (s != null && Helpers.canWriteRawJson(writer)) {
+      // The cached JSON is compact and uses the default escaping of JsonSerialization, which may not
+      // be exactly what this writer would have produced, but it is equivalent JSON.
+      writer.jsonValue(s);
+      return;
+    }
     writer.beginObject();
-    for (Map.Entry<String, LDValue> e: map.entrySet()) {
-      writer.name(e.getKey());
-      e.getValue().write(writer);
+    if (trie == null) {
+      for (int i = 0; i < keys.length; i++) {
+        writer.name(keys[i]);
+        values[i].write(writer);
+      }
+    } else {
+      for (HashTrie.Cursor c = trie.cursor(); c.next();) {
+        writer.name(c.key());
+        c.value().write(writer);
+      }
     }
     writer.endObject();
   }
+
+  private int indexOfKey(String name) {
+    if (name == null) {
+      return -1;
+    }
+    if (keys.length <= MAX_LINEAR_SEARCH_SIZE) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i].equals(name)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    return Arrays.binarySearch(keys, name);
+  }
 }
@@ -8,10 +8,52 @@ import java.io.IOException;
 @JsonAdapter(LDValueTypeAdapter.class)
 final class LDValueString extends LDValue {
   private static final LDValueString EMPTY = new LDValueString("");
+  
+  // The same short strings (variation values, enum-like attribute values, etc.) tend to be turned into
+  // LDValues over and over, so we keep a small direct-mapped cache of recently created instances for
+  // them. LDValueString is immutable and its field is final, so it is safe for threads to read and
+  // write the array without synchronization; the worst that a race can do is cause a cache miss.
+  //
+  // An empty slot is filled right away, but an entry is only replaced by a string that the current
+  // thread has recently missed on before, which is tracked in a small thread-local array of hash
+  // codes. Otherwise, on high-cardinality input every miss would write to the shared array, causing
+  // cache-line traffic between threads for entries that will probably never be looked up again.
+  private static final int STRING_CACHE_SIZE = 256; // must be a power of 2
+  private static final int MAX_CACHED_STRING_LENGTH = 16;
+  private static final LDValueString[] stringCache = new LDValueString[STRING_CACHE_SIZE];
+  private static final ThreadLocal<int[]> recentMisses = new ThreadLocal<int[]>() {
+    @Override
+    protected int[] initialValue() {
+      return new int[STRING_CACHE_SIZE];
+    }
+  };
+  
   private final String value;
   
   static LDValueString fromString(String value) {
-    return value.isEmpty() ? EMPTY : new LDValueString(value);
+    int length = value.length();
+    if (length == 0) {
+      return EMPTY;
+    }
+    if (length > MAX_CACHED_STRING_LENGTH) {
+      return new LDValueString(value);
+    }
+    int hash = value.hashCode();
+    int index = hash & (STRING_CACHE_SIZE - 1);
+    LDValueString cached = stringCache[index];
+    if (cached != null) {
+      if (cached.value.equals(value)) {
+        return cached;
+      }
+      int[] misses = recentMisses.get();
+      if (misses[index] != hash) {
+        misses[index] = hash;
+        return new LDValueString(value);
+      }
+    }
+    LDValueString ret = new LDValueString(value);
+    stringCache[index] = ret;
+    return ret;
   }
   
   private LDValueString(String value) {
@@ -32,6 +74,11 @@ final class LDValueString extends LDValue {
     return value;
   }
 
+  @Override
+  public int hashCode() {
+    return value.hashCode(); // String already caches its own hash
+  }
+  
   @Override
   void write(JsonWriter writer) throws IOException {
     writer.value(value);
@@ -38,7 +38,9 @@ final class LDValueTypeAdapter extends TypeAdapter<LDValue>{
       reader.nextNull();
       return LDValue.ofNull();
     case NUMBER:
-      return LDValue.of(reader.nextDouble());
+      // We read the number as a string so that integers can be parsed exactly, rather than being
+      // rounded to the nearest double.
+      return parseNumber(reader.nextString());
     case STRING:
       return LDValue.of(reader.nextString());
     default:
@@ -48,6 +50,32 @@ final class LDValueTypeAdapter extends TypeAdapter<LDValue>{
     }
   }
 
+  static LDValue parseNumber(String s) {
+    // Fast path for the most common case: a plain integer that is short enough that it can't overflow
+    int len = s.length();
+    if (len <= 18) {
+      boolean negative = len > 1 && s.charAt(0) == '-';
+      long n = 0;
+      int i = negative ? 1 : 0;
+      for (; i < len; i++) {
+        char ch = s.charAt(i);
+        if (ch < '0' || ch > '9') {
+          break;
+        }
+        n = n * 10 + (ch - '0');
+      }
+      if (i == len) {
+        return LDValue.of(negative ? -n : n);
+      }
+    }
+    if (s.indexOf('.') < 0 && s.indexOf('e') < 0 && s.indexOf('E') < 0) {
+      try {
+        return LDValue.of(Long.parseLong(s));
+      } catch (NumberFormatException e) {} // too big for a long; fall through and parse it as a double
+    }
+    return LDValue.of(Double.parseDouble(s));
+  }
+
   @Override
   public void write(JsonWriter writer, LDValue value) throws IOException {
     value.write(writer);
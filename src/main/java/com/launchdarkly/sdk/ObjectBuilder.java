@@ -9,12 +9,9 @@ import java.util.Map;
  * Builder methods are not thread-safe.
  */
 public final class ObjectBuilder {
-  // Note that we're not using ImmutableMap here because we don't want to duplicate its semantics
-  // for duplicate keys (rather than overwriting the key *or* throwing an exception when you add it,
-  // it accepts it but then throws an exception when you call build()). So we have to reimplement
-  // the copy-on-write behavior. 
-  private volatile Map<String, LDValue> builder = new HashMap<String, LDValue>();
-  private volatile boolean copyOnWrite = false;
+  // build() copies the map into LDValueObject's own immutable representation, so the builder can
+  // keep using the same map afterward.
+  private final Map<String, LDValue> builder = new HashMap<String, LDValue>();
   
   /**
    * Sets a key-value pair in the builder, overwriting any previous value for that key.
@@ -23,10 +20,6 @@ public final class ObjectBuilder {
    * @return the same builder
    */
   public ObjectBuilder put(String key, LDValue value) {
-    if (copyOnWrite) {
-      builder = new HashMap<>(builder);
-      copyOnWrite = false;
-    }
     builder.put(key, value == null ? LDValue.ofNull() : value);
     return this;
   }
@@ -93,12 +86,13 @@ public final class ObjectBuilder {
 
   /**
    * Returns an object containing the builder's current elements. Subsequent changes to the builder
-   * will not affect this value (it uses copy-on-write logic, so the previous values will only be
-   * copied to a new map if you continue to add elements after calling {@link #build()}.
+   * will not affect this value.
+   * <p>
+   * To derive a modified copy of an existing object without rebuilding it, use
+   * {@link LDValue#with(String, LDValue)} and {@link LDValue#without(String)}.
    * @return an {@link LDValue} that is a JSON object
    */
   public LDValue build() {
-    copyOnWrite = true;
     return LDValueObject.fromMap(builder); 
   }
 }
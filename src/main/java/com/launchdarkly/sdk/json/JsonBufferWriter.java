@@ -0,0 +1,630 @@
+package com.launchdarkly.sdk.json;
+
+import com.google.gson.JsonIOException;
+import com.launchdarkly.sdk.AttributeRef;
+import com.launchdarkly.sdk.ContextKind;
+import com.launchdarkly.sdk.EvaluationReason;
+import com.launchdarkly.sdk.LDContext;
+import com.launchdarkly.sdk.LDValue;
+import com.launchdarkly.sdk.LDValueType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// A minimal JSON writer for the SDK's own immutable types, which writes directly into a growable
+// character buffer rather than going through Gson. Serializing these types with Gson means looking
+// up a TypeAdapter for the runtime class, writing through a JsonWriter that tracks a stack of
+// scopes, and copying the result out of a StringWriter; for LDValue, LDContext, and
+// EvaluationReason, which are serialized on every analytics event, none of that is necessary.
+//
+// The output is exactly the same as what Gson would produce with the configuration used in
+// JsonSerialization, including Gson's default HTML-safe escaping of string characters, so callers
+// can't tell which path was used. The property order is also the same as in the corresponding
+// Gson TypeAdapters; if those adapters are changed, this class must be changed to match.
+//
+// Instances are not thread-safe. JsonSerialization keeps one per thread for reuse, via acquire()
+// and release().
+final class JsonBufferWriter {
+  private static final int INITIAL_CAPACITY = 256;
+
+  // A buffer that has grown beyond this size will not be retained for reuse, so that one unusually
+  // large serialization doesn't leave a large array attached to the thread indefinitely.
+  private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+  private static final int UTF8_CHUNK_SIZE = 8192;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final String[] REPLACEMENT_CHARS = makeReplacementChars();
+
+  private static final ThreadLocal<JsonBufferWriter> reusableInstance = new ThreadLocal<>();
+
+  private char[] buf = new char[INITIAL_CAPACITY];
+  private int size;
+  private int encodeIndex; // set by encodeUtf8
+  private final List<String> redactedAttributes = new ArrayList<>(); // used by writeRedactedContext
+
+  // When writing UTF-8 output, characters are only buffered until there are UTF8_CHUNK_SIZE of
+  // them; then they are encoded and passed to one of these, and the character buffer is reused.
+  private OutputStream outputStream;
+  private ByteBuffer outputBuffer;
+  private int outputBufferStart; // position of outputBuffer when we started writing to it
+  private byte[] encodeBuf; // allocated the first time it is needed, and then reused
+
+  static boolean canWrite(Object instance) {
+    if (instance instanceof LDContext) {
+      return !hasAttributeShadowingBuiltIn((LDContext)instance);
+    }
+    return instance instanceof LDValue || instance instanceof EvaluationReason;
+  }
+
+  // A context converted from an LDUser can have a custom attribute with the same name as a built-in
+  // one, such as "name". The Gson adapter writes both values, but the public API only gives us the
+  // built-in one, so we leave such a context to Gson. Only a user context can be in this state.
+  private static boolean hasAttributeShadowingBuiltIn(LDContext c) {
+    if (c.isMultiple()) {
+      LDContext userContext = c.getIndividualContext(ContextKind.DEFAULT);
+      return userContext != null && hasAttributeShadowingBuiltIn(userContext);
+    }
+    if (!c.isValid() || !c.getKind().isDefault()) {
+      return false;
+    }
+    for (String attrName: c.getCustomAttributeNames()) {
+      switch (attrName) {
+      case "kind":
+      case "key":
+      case "name":
+      case "anonymous":
+        return true;
+      default:
+        break;
+      }
+    }
+    return false;
+  }
+
+  static JsonBufferWriter acquire() {
+    JsonBufferWriter w = reusableInstance.get();
+    if (w == null) {
+      return new JsonBufferWriter();
+    }
+    reusableInstance.set(null); // so a reentrant call on the same thread can't get the same instance
+    w.size = 0;
+    return w;
+  }
+
+  void release() {
+    outputStream = null;
+    outputBuffer = null;
+    if (buf.length <= MAX_RETAINED_CAPACITY) {
+      reusableInstance.set(this);
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return new String(buf, 0, size);
+  }
+
+  // Causes everything written from now on to be encoded as UTF-8 and written to the stream, one
+  // chunk at a time, so that neither the characters nor the bytes of the whole output are ever held
+  // in memory at once. An IOException from the stream is thrown as a JsonIOException whose cause is
+  // the IOException, the same as Gson does. finishUtf8Output() must be called at the end.
+  void startUtf8Output(OutputStream out) {
+    outputStream = out;
+  }
+
+  // Same as startUtf8Output(OutputStream), but for a ByteBuffer, starting at its current position.
+  // If the buffer runs out of room, this throws BufferOverflowException and resets the buffer to its
+  // original position; the bytes after that position may have been overwritten.
+  void startUtf8Output(ByteBuffer out) {
+    outputBuffer = out;
+    outputBufferStart = out.position();
+  }
+
+  void finishUtf8Output() {
+    flushUtf8(size);
+  }
+
+  // Encodes the first n buffered characters as UTF-8 and writes them to the current output, then
+  // moves any remaining characters to the start of the buffer.
+  private void flushUtf8(int n) {
+    int i = 0;
+    while (i < n) {
+      if (outputBuffer != null && outputBuffer.hasArray()) {
+        // encode straight into the destination
+        int start = outputBuffer.arrayOffset() + outputBuffer.position();
+        int end = outputBuffer.arrayOffset() + outputBuffer.limit();
+        int pos = encodeUtf8(i, n, outputBuffer.array(), start, end);
+        i = encodeIndex;
+        outputBuffer.position(outputBuffer.position() + pos - start);
+        if (i < n) {
+          overflow();
+        }
+        break;
+      }
+      if (encodeBuf == null) {
+        encodeBuf = new byte[UTF8_CHUNK_SIZE];
+      }
+      int bytes = encodeUtf8(i, n, encodeBuf, 0, encodeBuf.length);
+      i = encodeIndex;
+      if (outputStream != null) {
+        try {
+          outputStream.write(encodeBuf, 0, bytes);
+        } catch (IOException e) {
+          throw new JsonIOException(e);
+        }
+      } else {
+        if (bytes > outputBuffer.remaining()) {
+          overflow();
+        }
+        outputBuffer.put(encodeBuf, 0, bytes);
+      }
+    }
+    System.arraycopy(buf, n, buf, 0, size - n);
+    size -= n;
+  }
+
+  private void overflow() {
+    outputBuffer.position(outputBufferStart);
+    throw new BufferOverflowException();
+  }
+
+  void write(Object instance) {
+    if (instance instanceof LDValue) {
+      writeValue((LDValue)instance);
+    } else if (instance instanceof LDContext) {
+      writeContext((LDContext)instance);
+    } else if (instance instanceof EvaluationReason) {
+      writeReason((EvaluationReason)instance);
+    } else {
+      // COVERAGE: callers check canWrite() first
+      throw new IllegalArgumentException("unsupported type: " + instance.getClass());
+    }
+  }
+
+  void writeValue(LDValue value) {
+    switch (value.getType()) {
+    case BOOLEAN:
+      appendRaw(value.booleanValue() ? "true" : "false");
+      break;
+    case NUMBER:
+      writeNumber(value);
+      break;
+    case STRING:
+      writeString(value.stringValue());
+      break;
+    case ARRAY:
+      append('[');
+      boolean first = true;
+      for (LDValue element: value.values()) {
+        if (!first) {
+          append(',');
+        }
+        first = false;
+        writeValue(element);
+      }
+      append(']');
+      break;
+    case OBJECT:
+      append('{');
+      first = true;
+      for (String key: value.keys()) {
+        if (!first) {
+          append(',');
+        }
+        first = false;
+        writeString(key);
+        append(':');
+        writeValue(value.get(key));
+      }
+      append('}');
+      break;
+    default:
+      appendRaw("null");
+    }
+  }
+
+  void writeContext(LDContext context) {
+    if (!context.isValid()) {
+      throw new JsonIOException("tried to serialize invalid LDContext: " + context.getError());
+    }
+    if (context.isMultiple()) {
+      append('{');
+      writeName("kind", true);
+      writeString(context.getKind().toString());
+      for (int i = 0; i < context.getIndividualContextCount(); i++) {
+        LDContext c = context.getIndividualContext(i);
+        writeName(c.getKind().toString(), false);
+        writeSingleKindContext(c, false);
+      }
+      append('}');
+    } else {
+      writeSingleKindContext(context, true);
+    }
+  }
+
+  private void writeSingleKindContext(LDContext c, boolean includeKind) {
+    append('{');
+    if (includeKind) {
+      writeName("kind", true);
+      writeString(c.getKind().toString());
+      writeName("key", false);
+    } else {
+      writeName("key", true);
+    }
+    writeString(c.getKey());
+    if (c.getName() != null) {
+      writeName("name", false);
+      writeString(c.getName());
+    }
+    if (c.isAnonymous()) {
+      writeName("anonymous", false);
+      appendRaw("true");
+    }
+    for (String attrName: c.getCustomAttributeNames()) {
+      writeName(attrName, false);
+      writeValue(c.getValue(attrName));
+    }
+    int privateCount = c.getPrivateAttributeCount();
+    if (privateCount != 0) {
+      writeName("_meta", false);
+      append('{');
+      writeName("privateAttributes", true);
+      append('[');
+      for (int i = 0; i < privateCount; i++) {
+        if (i != 0) {
+          append(',');
+        }
+        AttributeRef a = c.getPrivateAttribute(i);
+        writeString(a.toString());
+      }
+      append(']');
+      append('}');
+    }
+    append('}');
+  }
+
+  // Writes a context in the form used in analytics events, which is the same as the usual JSON form
+  // except that private attributes are omitted, and "_meta" lists the ones that were omitted instead
+  // of the context's private attribute references. See RedactingContextSerializer.
+  void writeRedactedContext(LDContext context, boolean allAttributesPrivate, RedactionPlanCache plans) {
+    if (!context.isValid()) {
+      throw new JsonIOException("tried to serialize invalid LDContext: " + context.getError());
+    }
+    if (context.isMultiple()) {
+      append('{');
+      writeName("kind", true);
+      writeString(context.getKind().toString());
+      for (int i = 0; i < context.getIndividualContextCount(); i++) {
+        LDContext c = context.getIndividualContext(i);
+        writeName(c.getKind().toString(), false);
+        writeRedactedSingleKindContext(c, false, allAttributesPrivate, plans);
+      }
+      append('}');
+    } else {
+      writeRedactedSingleKindContext(context, true, allAttributesPrivate, plans);
+    }
+  }
+
+  private void writeRedactedSingleKindContext(LDContext c, boolean includeKind, boolean allAttributesPrivate,
+      RedactionPlanCache plans) {
+    RedactionTrie privateAttributes = allAttributesPrivate ? null : plans.planFor(c).trie();
+    redactedAttributes.clear();
+    append('{');
+    if (includeKind) {
+      writeName("kind", true);
+      writeString(c.getKind().toString());
+      writeName("key", false);
+    } else {
+      writeName("key", true);
+    }
+    writeString(c.getKey());
+    // "kind", "key", and "anonymous" can never be private, but "name" can
+    if (c.getName() != null) {
+      writeRedactableAttribute("name", c.getValue("name"), allAttributesPrivate, privateAttributes);
+    }
+    if (c.isAnonymous()) {
+      writeName("anonymous", false);
+      appendRaw("true");
+    }
+    for (String attrName: c.getCustomAttributeNames()) {
+      writeRedactableAttribute(attrName, c.getValue(attrName), allAttributesPrivate, privateAttributes);
+    }
+    if (!redactedAttributes.isEmpty()) {
+      writeName("_meta", false);
+      append('{');
+      writeName("redactedAttributes", true);
+      append('[');
+      for (int i = 0; i < redactedAttributes.size(); i++) {
+        if (i != 0) {
+          append(',');
+        }
+        writeString(redactedAttributes.get(i));
+      }
+      append(']');
+      append('}');
+    }
+    append('}');
+  }
+
+  private void writeRedactableAttribute(String name, LDValue value, boolean allAttributesPrivate,
+      RedactionTrie privateAttributes) {
+    if (allAttributesPrivate) {
+      redactedAttributes.add(AttributeRef.fromLiteral(name).toString());
+      return;
+    }
+    writeRedactableProperty(name, value, false, privateAttributes == null ? null : privateAttributes.child(name));
+  }
+
+  // Writes a property unless the trie node says it is private, recursing into it if it is an object
+  // that has private properties. Returns true if the property was written.
+  private boolean writeRedactableProperty(String name, LDValue value, boolean first, RedactionTrie node) {
+    if (node != null && node.redactedRef() != null) {
+      redactedAttributes.add(node.redactedRef());
+      return false;
+    }
+    writeName(name, first);
+    // A reference to a property within a value that is not an object doesn't match anything
+    if (node != null && node.hasChildren() && value.getType() == LDValueType.OBJECT) {
+      append('{');
+      boolean firstProperty = true;
+      for (String key: value.keys()) {
+        if (writeRedactableProperty(key, value.get(key), firstProperty, node.child(key))) {
+          firstProperty = false;
+        }
+      }
+      append('}');
+    } else {
+      writeValue(value);
+    }
+    return true;
+  }
+
+  // EvaluationReason also uses this, via JsonSerialization, to compute the JSON that it caches.
+  void writeReason(EvaluationReason reason) {
+    append('{');
+    writeName("kind", true);
+    writeString(reason.getKind().name());
+    switch (reason.getKind()) {
+    case RULE_MATCH:
+      writeName("ruleIndex", false);
+      appendLong(reason.getRuleIndex());
+      if (reason.getRuleId() != null) {
+        writeName("ruleId", false);
+        writeString(reason.getRuleId());
+      }
+      if (reason.isInExperiment()) {
+        writeName("inExperiment", false);
+        appendRaw("true");
+      }
+      break;
+    case FALLTHROUGH:
+      if (reason.isInExperiment()) {
+        writeName("inExperiment", false);
+        appendRaw("true");
+      }
+      break;
+    case PREREQUISITE_FAILED:
+      writeName("prerequisiteKey", false);
+      if (reason.getPrerequisiteKey() == null) {
+        appendRaw("null");
+      } else {
+        writeString(reason.getPrerequisiteKey());
+      }
+      break;
+    case ERROR:
+      writeName("errorKind", false);
+      writeString(reason.getErrorKind().name());
+      break;
+    default:
+      break;
+    }
+    if (reason.getBigSegmentsStatus() != null) {
+      writeName("bigSegmentsStatus", false);
+      writeString(reason.getBigSegmentsStatus().name());
+    }
+    append('}');
+  }
+
+  private void writeName(String name, boolean first) {
+    if (!first) {
+      append(',');
+    }
+    writeString(name);
+    append(':');
+  }
+
+  private void writeNumber(LDValue value) {
+    // This is consistent with the LDValue number classes' own write logic, where integers (which are
+    // always long-backed) are written without a decimal point and other numbers are written the way
+    // Gson writes a double
+    if (value.isInt()) {
+      appendLong(value.longValue());
+    } else {
+      double d = value.doubleValue();
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        // same as Gson's JsonWriter, unless it is in lenient mode
+        throw new IllegalArgumentException("Numeric values must be finite, but was " + d);
+      }
+      appendRaw(Double.toString(d));
+    }
+  }
+
+  private void writeString(String s) {
+    int len = s.length();
+    ensureCapacity(Math.min(len, UTF8_CHUNK_SIZE) + 2);
+    buf[size++] = '"';
+    int last = 0;
+    for (int i = 0; i < len; i++) {
+      char ch = s.charAt(i);
+      String replacement;
+      if (ch < 128) {
+        replacement = REPLACEMENT_CHARS[ch];
+        if (replacement == null) {
+          continue;
+        }
+      } else if (ch == '\u2028') {
+        replacement = "\\u2028";
+      } else if (ch == '\u2029') {
+        replacement = "\\u2029";
+      } else {
+        continue;
+      }
+      if (last < i) {
+        appendChars(s, last, i);
+      }
+      appendRaw(replacement);
+      last = i + 1;
+    }
+    if (last < len) {
+      appendChars(s, last, len);
+    }
+    append('"');
+  }
+
+  private void appendLong(long n) {
+    if (n == Long.MIN_VALUE) {
+      appendRaw(Long.toString(n)); // can't be negated
+      return;
+    }
+    ensureCapacity(20);
+    if (n < 0) {
+      buf[size++] = '-';
+      n = -n;
+    }
+    int digits = 1;
+    for (long m = n / 10; m != 0; m /= 10) {
+      digits++;
+    }
+    int pos = size + digits;
+    size = pos;
+    do {
+      buf[--pos] = (char)('0' + (int)(n % 10));
+      n /= 10;
+    } while (n != 0);
+  }
+
+  private void append(char ch) {
+    ensureCapacity(1);
+    buf[size++] = ch;
+  }
+
+  private void appendRaw(String s) {
+    appendChars(s, 0, s.length());
+  }
+
+  private void appendChars(String s, int start, int end) {
+    if (isWritingUtf8() && end - start > UTF8_CHUNK_SIZE) {
+      // Don't let one long string make the buffer grow beyond the chunk size
+      while (start < end) {
+        ensureCapacity(1);
+        int n = Math.min(end - start, buf.length - size);
+        s.getChars(start, start + n, buf, size);
+        size += n;
+        start += n;
+      }
+      return;
+    }
+    ensureCapacity(end - start);
+    s.getChars(start, end, buf, size);
+    size += end - start;
+  }
+
+  // Encodes buffered characters as UTF-8 into dest, starting from the character at index i, until
+  // either the character at charEnd is reached or the next one will not fit before destEnd. Returns
+  // the position in dest after the last byte written, and sets encodeIndex to the index of the next
+  // character to encode. Unpaired surrogates are encoded as '?', the same as String.getBytes() and
+  // OutputStreamWriter would do.
+  private int encodeUtf8(int i, int charEnd, byte[] dest, int destPos, int destEnd) {
+    int pos = destPos;
+    while (i < charEnd) {
+      char ch = buf[i];
+      if (ch < 0x80) {
+        if (pos >= destEnd) {
+          break;
+        }
+        dest[pos++] = (byte)ch;
+        i++;
+      } else if (ch < 0x800) {
+        if (pos + 2 > destEnd) {
+          break;
+        }
+        dest[pos++] = (byte)(0xc0 | (ch >> 6));
+        dest[pos++] = (byte)(0x80 | (ch & 0x3f));
+        i++;
+      } else if (Character.isHighSurrogate(ch) && i + 1 < charEnd && Character.isLowSurrogate(buf[i + 1])) {
+        if (pos + 4 > destEnd) {
+          break;
+        }
+        int cp = Character.toCodePoint(ch, buf[i + 1]);
+        dest[pos++] = (byte)(0xf0 | (cp >> 18));
+        dest[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3f));
+        dest[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3f));
+        dest[pos++] = (byte)(0x80 | (cp & 0x3f));
+        i += 2;
+      } else if (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE) {
+        if (pos >= destEnd) {
+          break;
+        }
+        dest[pos++] = '?';
+        i++;
+      } else {
+        if (pos + 3 > destEnd) {
+          break;
+        }
+        dest[pos++] = (byte)(0xe0 | (ch >> 12));
+        dest[pos++] = (byte)(0x80 | ((ch >> 6) & 0x3f));
+        dest[pos++] = (byte)(0x80 | (ch & 0x3f));
+        i++;
+      }
+    }
+    encodeIndex = i;
+    return pos;
+  }
+
+  private boolean isWritingUtf8() {
+    return outputStream != null || outputBuffer != null;
+  }
+
+  private void ensureCapacity(int additional) {
+    if (isWritingUtf8() && size + additional > UTF8_CHUNK_SIZE) {
+      // Leave a trailing high surrogate in the buffer, so it is encoded along with its pair
+      flushUtf8(size > 0 && Character.isHighSurrogate(buf[size - 1]) ? size - 1 : size);
+    }
+    int required = size + additional;
+    if (required > buf.length) {
+      char[] newBuf = new char[Math.max(required, buf.length * 2)];
+      System.arraycopy(buf, 0, newBuf, 0, size);
+      buf = newBuf;
+    }
+  }
+
+  // Same escaping rules as Gson's JsonWriter with HTML-safe escaping, which is the default
+  private static String[] makeReplacementChars() {
+    String[] ret = new String[128];
+    for (int i = 0; i < 0x20; i++) {
+      ret[i] = "\\u00" + HEX_DIGITS[i >> 4] + HEX_DIGITS[i & 0xf];
+    }
+    ret['"'] = "\\\"";
+    ret['\\'] = "\\\\";
+    ret['\t'] = "\\t";
+    ret['\b'] = "\\b";
+    ret['\n'] = "\\n";
+    ret['\r'] = "\\r";
+    ret['\f'] = "\\f";
+    ret['<'] = "\\u003c";
+    ret['>'] = "\\u003e";
+    ret['&'] = "\\u0026";
+    ret['='] = "\\u003d";
+    ret['\''] = "\\u0027";
+    return ret;
+  }
+}
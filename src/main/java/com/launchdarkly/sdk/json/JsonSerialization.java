@@ -2,6 +2,9 @@ package com.launchdarkly.sdk.json;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.launchdarkly.sdk.AttributeRef;
 import com.launchdarkly.sdk.ContextKind;
 import com.launchdarkly.sdk.EvaluationDetail;
@@ -11,8 +14,19 @@ import com.launchdarkly.sdk.LDUser;
 import com.launchdarkly.sdk.LDValue;
 import com.launchdarkly.sdk.UserAttribute;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,6 +47,10 @@ import java.util.List;
  * <li> For {@link LDValue}, you may also use the convenience methods {@link LDValue#toJsonString()} and
  * {@link LDValue#parse(String)}.
  * </ol>
+ * <p>
+ * The methods that read or write bytes, rather than strings, always use the UTF-8 encoding. They do not
+ * build an intermediate string for the whole JSON document, so they are preferable when the JSON data
+ * is coming from or going to a network connection or file.
  */
 public abstract class JsonSerialization {
   private JsonSerialization() {}
@@ -44,6 +62,9 @@ public abstract class JsonSerialization {
   // the GsonWriter would not allow us to write a null property value ever. 
   private static final Gson gson = new GsonBuilder().serializeNulls().create();
   
+  // StandardCharsets is not available in older Android versions
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  
   /**
    * Converts an object to its JSON representation.
    * <p>
@@ -60,9 +81,100 @@ public abstract class JsonSerialization {
   
   // We use this internally in situations where generic type checking isn't desirable
   static String serializeInternal(Object instance) {
+    if (JsonBufferWriter.canWrite(instance)) {
+      // For the most commonly serialized SDK types, we bypass Gson and write directly to a reusable
+      // buffer; the output is the same. See JsonBufferWriter.
+      JsonBufferWriter w = JsonBufferWriter.acquire();
+      try {
+        w.write(instance);
+        return w.toString();
+      } finally {
+        w.release();
+      }
+    }
     return gson.toJson(instance);
   }
   
+  /**
+   * Writes an object's JSON representation to a stream, using UTF-8 encoding.
+   * <p>
+   * This is only usable for classes that have the {@link JsonSerializable} marker interface,
+   * indicating that the SDK knows how to serialize them. The stream is not closed.
+   * 
+   * @param <T> class of the object being serialized
+   * @param instance the instance to serialize
+   * @param output the stream to write to
+   * @throws IOException if the stream threw an exception
+   */
+  public static <T extends JsonSerializable> void serializeTo(T instance, OutputStream output) throws IOException {
+    if (JsonBufferWriter.canWrite(instance)) {
+      JsonBufferWriter w = JsonBufferWriter.acquire();
+      try {
+        w.startUtf8Output(output);
+        w.write(instance);
+        w.finishUtf8Output();
+      } catch (JsonIOException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException)e.getCause();
+        }
+        throw e;
+      } finally {
+        w.release();
+      }
+      return;
+    }
+    Writer writer = new OutputStreamWriter(output, UTF8);
+    try {
+      gson.toJson(instance, writer);
+    } catch (JsonIOException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException)e.getCause();
+      }
+      throw e; // COVERAGE: Gson only throws JsonIOException for I/O errors
+    }
+    writer.flush(); // pushes any bytes buffered by the encoder through to the stream, without closing it
+  }
+  
+  /**
+   * Writes an object's JSON representation into a buffer, using UTF-8 encoding.
+   * <p>
+   * This is only usable for classes that have the {@link JsonSerializable} marker interface,
+   * indicating that the SDK knows how to serialize them.
+   * <p>
+   * The bytes are written starting at the buffer's current position, and the position is advanced
+   * past them. If the remaining space in the buffer is too small, the position is left unchanged,
+   * although the bytes after it may have been overwritten.
+   * 
+   * @param <T> class of the object being serialized
+   * @param instance the instance to serialize
+   * @param output the buffer to write to
+   * @throws BufferOverflowException if there is not enough space remaining in the buffer
+   */
+  public static <T extends JsonSerializable> void serializeTo(T instance, ByteBuffer output) {
+    if (JsonBufferWriter.canWrite(instance)) {
+      JsonBufferWriter w = JsonBufferWriter.acquire();
+      try {
+        w.startUtf8Output(output);
+        w.write(instance);
+        w.finishUtf8Output();
+      } finally {
+        w.release();
+      }
+      return;
+    }
+    int start = output.position();
+    try {
+      Writer writer = new OutputStreamWriter(new ByteBufferOutputStream(output), UTF8);
+      gson.toJson(instance, writer);
+      writer.flush();
+    } catch (IOException e) {
+      throw new JsonIOException(e); // COVERAGE: ByteBufferOutputStream doesn't throw IOException
+    } catch (BufferOverflowException e) {
+      output.position(start);
+      throw e;
+    }
+  }
+  
   /**
    * Parses an object from its JSON representation.
    * <p>
@@ -97,6 +209,112 @@ public abstract class JsonSerialization {
       throw new SerializationException(e);
     }
   }
+  
+  /**
+   * Parses an object from its JSON representation in UTF-8 encoding.
+   * <p>
+   * This is equivalent to {@link #deserialize(String, Class)}, but reads the bytes directly.
+   * 
+   * @param <T> class of the object being deserialized
+   * @param json the object's JSON encoding as UTF-8 bytes
+   * @param objectClass class of the object being deserialized
+   * @return the deserialized instance
+   * @throws SerializationException if the JSON encoding was invalid
+   */
+  public static <T extends JsonSerializable> T deserialize(byte[] json, Class<T> objectClass) throws SerializationException {
+    if (json == null) {
+      throw new SerializationException("input was null");
+    }
+    return deserializeFromReader(new InputStreamReader(new ByteArrayInputStream(json), UTF8), objectClass);
+  }
+  
+  /**
+   * Parses an object from its JSON representation in UTF-8 encoding.
+   * <p>
+   * This is equivalent to {@link #deserialize(String, Class)}, but reads the bytes directly. It reads
+   * the bytes between the buffer's current position and its limit; the position is not changed.
+   * 
+   * @param <T> class of the object being deserialized
+   * @param json a buffer containing the object's JSON encoding as UTF-8 bytes
+   * @param objectClass class of the object being deserialized
+   * @return the deserialized instance
+   * @throws SerializationException if the JSON encoding was invalid
+   */
+  public static <T extends JsonSerializable> T deserialize(ByteBuffer json, Class<T> objectClass) throws SerializationException {
+    if (json == null) {
+      throw new SerializationException("input was null");
+    }
+    InputStream stream = json.hasArray() ?
+        new ByteArrayInputStream(json.array(), json.arrayOffset() + json.position(), json.remaining()) :
+        new ByteBufferInputStream(json.duplicate());
+    return deserializeFromReader(new InputStreamReader(stream, UTF8), objectClass);
+  }
+  
+  /**
+   * Parses an object from its JSON representation in UTF-8 encoding, read from a stream.
+   * <p>
+   * This is equivalent to {@link #deserialize(String, Class)}, but reads the bytes directly. The
+   * stream must contain only the JSON representation of the object. It is not closed.
+   * 
+   * @param <T> class of the object being deserialized
+   * @param json a stream providing the object's JSON encoding as UTF-8 bytes
+   * @param objectClass class of the object being deserialized
+   * @return the deserialized instance
+   * @throws SerializationException if the JSON encoding was invalid, or if the stream threw an exception
+   */
+  public static <T extends JsonSerializable> T deserialize(InputStream json, Class<T> objectClass) throws SerializationException {
+    if (json == null) {
+      throw new SerializationException("input was null");
+    }
+    return deserializeFromReader(new InputStreamReader(json, UTF8), objectClass);
+  }
+  
+  // This does the same thing as Gson.fromJson(Reader, Class), except that it rejects empty input the
+  // same way deserializeInternal(String, Class) does.
+  private static <T> T deserializeFromReader(Reader reader, Class<T> objectClass) throws SerializationException {
+    try {
+      JsonReader jsonReader = gson.newJsonReader(reader);
+      jsonReader.setLenient(true); // Gson.fromJson will do this anyway
+      if (jsonReader.peek() == JsonToken.END_DOCUMENT) {
+        throw new SerializationException("input was empty");
+      }
+      T ret = gson.fromJson(jsonReader, objectClass);
+      if (ret != null && jsonReader.peek() != JsonToken.END_DOCUMENT) {
+        throw new SerializationException("JSON document was not fully consumed");
+      }
+      return ret;
+    } catch (SerializationException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new SerializationException(e);
+    }
+  }
+  
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+    
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+    
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0; // COVERAGE: InputStreamReader never asks for zero bytes
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+  }
 
   // Used internally to delegate to gson.toJson() in a way that will work correctly regardless of
   // whether we're shading the Gson types or not.
@@ -177,4 +395,24 @@ public abstract class JsonSerialization {
     
     return knownDeserializableClasses;
   }
+
+  // Lets Gson write UTF-8 into a ByteBuffer through an OutputStreamWriter, which encodes its output
+  // in small chunks, so that we don't need a String and a byte array for the whole output.
+  private static final class ByteBufferOutputStream extends OutputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferOutputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+      buffer.put((byte)b); // COVERAGE: OutputStreamWriter always writes arrays
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      buffer.put(b, off, len);
+    }
+  }
 }
@@ -284,6 +284,14 @@ public abstract class LDGson {
 
     @Override
     protected void jsonValueInternal(String value) throws IOException {
+      if (writer.getClass().getName().endsWith(".JsonTreeWriter")) {
+        // Gson.toJsonTree() uses a JsonTreeWriter, which doesn't support jsonValue(), so we have to
+        // parse the fragment and write it as a tree. Our own adapters only write fragments that were
+        // cached ahead of time, so this is uncommon.
+        Gson gson = new Gson();
+        gson.toJson(gson.fromJson(value, JsonElement.class), writer);
+        return;
+      }
       writer.jsonValue(value);
     }
 
@@ -168,7 +168,14 @@ public class LDJackson {
 
     @Override
     public String nextString() throws IOException {
-      requireToken(JsonToken.VALUE_STRING, JsonToken.VALUE_NULL, "string");
+      // Like Gson's JsonReader, we allow a number to be read as a string, returning its literal text
+      JsonToken t = consumeToken();
+      if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) {
+        return parser.getText();
+      }
+      if (t != JsonToken.VALUE_STRING && t != JsonToken.VALUE_NULL) {
+        throw new JsonParseException(parser, "expected string");
+      }
       return parser.getValueAsString();
     }
 
@@ -0,0 +1,102 @@
+package com.launchdarkly.sdk.json;
+
+import com.google.gson.JsonIOException;
+import com.launchdarkly.sdk.AttributeRef;
+import com.launchdarkly.sdk.LDContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Serializes {@link LDContext} instances to JSON with their private attributes removed, in the
+ * format that LaunchDarkly expects in analytics events.
+ * <p>
+ * The output is the same as that of {@link JsonSerialization#serialize(JsonSerializable)},
+ * except for the following:
+ * <ul>
+ * <li> Any attribute, or property within an attribute, that is referenced by one of the
+ * context's own private attributes (see {@link com.launchdarkly.sdk.ContextBuilder#privateAttributes(String...)})
+ * or by one of the private attributes specified for this serializer is omitted. The attributes
+ * "kind", "key", and "anonymous" cannot be private. </li>
+ * <li> If {@code allAttributesPrivate} was specified, all attributes other than those three are
+ * omitted. </li>
+ * <li> The {@code "_meta"} object does not contain {@code "privateAttributes"}; instead, if any
+ * attributes were omitted, it contains {@code "redactedAttributes"}, a list of the attribute
+ * references (in the same format as {@link AttributeRef#toString()}) that were omitted. A
+ * reference that did not match anything in the context is not included. </li>
+ * </ul>
+ * <p>
+ * For example, if the private attribute references are "email" and "/address/street", then
+ * the context <code>{"kind":"user","key":"a","email":"b","address":{"street":"c","city":"d"}}</code>
+ * is serialized as <code>{"kind":"user","key":"a","address":{"city":"d"},
+ * "_meta":{"redactedAttributes":["email","/address/street"]}}</code>.
+ * <p>
+ * The serializer's private attribute references are processed once, when it is created, and it
+ * remembers the result of combining them with each distinct set of private attributes that it sees
+ * in contexts; so an application should create a single instance for its configuration and reuse it.
+ * Instances can be used from multiple threads.
+ */
+public final class RedactingContextSerializer {
+  private final boolean allAttributesPrivate;
+  private final RedactionPlanCache plans;
+
+  /**
+   * Creates a serializer.
+   *
+   * @param allAttributesPrivate true if all attributes other than "kind", "key", and "anonymous"
+   *   should be omitted from every context
+   * @param privateAttributes references to attributes that should be omitted from every context, in
+   *   addition to each context's own private attributes; may be null or empty
+   */
+  public RedactingContextSerializer(boolean allAttributesPrivate, Collection<AttributeRef> privateAttributes) {
+    this.allAttributesPrivate = allAttributesPrivate;
+    this.plans = new RedactionPlanCache(
+        privateAttributes == null ? Collections.<AttributeRef>emptyList() : new ArrayList<>(privateAttributes),
+        RedactionPlanCache.DEFAULT_SIZE);
+  }
+
+  /**
+   * Converts a context to its redacted JSON representation.
+   *
+   * @param context the context to serialize
+   * @return the JSON encoding as a string
+   * @throws com.google.gson.JsonIOException if the context is invalid (see {@link LDContext#isValid()})
+   */
+  public String serialize(LDContext context) {
+    JsonBufferWriter w = JsonBufferWriter.acquire();
+    try {
+      w.writeRedactedContext(context, allAttributesPrivate, plans);
+      return w.toString();
+    } finally {
+      w.release();
+    }
+  }
+
+  /**
+   * Writes a context's redacted JSON representation to a stream, using UTF-8 encoding. The stream
+   * is not closed.
+   *
+   * @param context the context to serialize
+   * @param output the stream to write to
+   * @throws IOException if the stream threw an exception
+   * @throws com.google.gson.JsonIOException if the context is invalid (see {@link LDContext#isValid()})
+   */
+  public void serializeTo(LDContext context, OutputStream output) throws IOException {
+    JsonBufferWriter w = JsonBufferWriter.acquire();
+    try {
+      w.startUtf8Output(output);
+      w.writeRedactedContext(context, allAttributesPrivate, plans);
+      w.finishUtf8Output();
+    } catch (JsonIOException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException)e.getCause();
+      }
+      throw e;
+    } finally {
+      w.release();
+    }
+  }
+}
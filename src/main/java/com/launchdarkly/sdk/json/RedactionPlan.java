@@ -0,0 +1,69 @@
+package com.launchdarkly.sdk.json;
+
+import com.launchdarkly.sdk.AttributeRef;
+import com.launchdarkly.sdk.LDContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The compiled form of everything that is private for a context: the serializer's global private
+// attributes plus the context's own, merged into a single RedactionTrie so that the serializer only
+// has to do one lookup per attribute name. Plans are cached by RedactionPlanCache, keyed by the
+// context's own private attribute references.
+//
+// A plan is immutable once constructed, and the trie is only reachable through a final field, so a
+// plan can safely be shared between threads without locking.
+final class RedactionPlan {
+  private final AttributeRef[] contextPrivateAttributes; // the cache key; never null
+  private final RedactionTrie trie; // null if nothing is private
+
+  private RedactionPlan(AttributeRef[] contextPrivateAttributes, RedactionTrie trie) {
+    this.contextPrivateAttributes = contextPrivateAttributes;
+    this.trie = trie;
+  }
+
+  static RedactionPlan compile(List<AttributeRef> globalPrivateAttributes, LDContext context) {
+    AttributeRef[] contextPrivateAttributes = new AttributeRef[context.getPrivateAttributeCount()];
+    for (int i = 0; i < contextPrivateAttributes.length; i++) {
+      contextPrivateAttributes[i] = context.getPrivateAttribute(i);
+    }
+    return compile(globalPrivateAttributes, contextPrivateAttributes);
+  }
+
+  static RedactionPlan compile(List<AttributeRef> globalPrivateAttributes, AttributeRef[] contextPrivateAttributes) {
+    List<AttributeRef> all = new ArrayList<>(globalPrivateAttributes.size() + contextPrivateAttributes.length);
+    // The global references go first, so that if the same attribute is referenced in both ways, it
+    // is reported in the form used in the configuration.
+    all.addAll(globalPrivateAttributes);
+    all.addAll(Arrays.asList(contextPrivateAttributes));
+    return new RedactionPlan(contextPrivateAttributes, RedactionTrie.compile(all));
+  }
+
+  RedactionTrie trie() {
+    return trie;
+  }
+
+  // True if this plan was compiled for a context with the same private attribute references, in the
+  // same order. This doesn't allocate anything, so a cache hit costs no more than the comparison.
+  boolean matches(LDContext context) {
+    if (context.getPrivateAttributeCount() != contextPrivateAttributes.length) {
+      return false;
+    }
+    for (int i = 0; i < contextPrivateAttributes.length; i++) {
+      if (!contextPrivateAttributes[i].equals(context.getPrivateAttribute(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Must be consistent with Arrays.hashCode(contextPrivateAttributes), which is what matches() compares.
+  static int hashPrivateAttributes(LDContext context) {
+    int h = 1;
+    for (int i = 0; i < context.getPrivateAttributeCount(); i++) {
+      h = 31 * h + context.getPrivateAttribute(i).hashCode();
+    }
+    return h;
+  }
+}
@@ -0,0 +1,76 @@
+package com.launchdarkly.sdk.json;
+
+import com.launchdarkly.sdk.AttributeRef;
+import com.launchdarkly.sdk.LDContext;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A bounded cache of RedactionPlans for one RedactingContextSerializer, keyed by each context's own
+// private attribute references. An application usually builds its contexts the same way every time,
+// so there are only a few distinct sets of private attributes, and this lets the serializer compile
+// each of them just once instead of once per context.
+//
+// This is direct-mapped and lock-free in the same way as AttributeRefCache: a colliding entry is
+// overwritten, and since RedactionPlan is immutable, the worst that a race can do is cause a miss.
+final class RedactionPlanCache {
+  static final int DEFAULT_SIZE = 64;
+
+  // Hit and miss counts are striped by thread in the same way as in AttributeRefCache.
+  private static final int COUNTER_STRIPES = 8; // must be a power of 2
+  private static final int COUNTER_SPACING = 8; // number of longs in a cache line
+
+  private final List<AttributeRef> globalPrivateAttributes;
+  private final RedactionPlan globalOnlyPlan; // used for contexts with no private attributes of their own
+  private final RedactionPlan[] entries;
+  private final int mask;
+  private final AtomicLongArray hits = new AtomicLongArray(COUNTER_STRIPES * COUNTER_SPACING);
+  private final AtomicLongArray misses = new AtomicLongArray(COUNTER_STRIPES * COUNTER_SPACING);
+
+  RedactionPlanCache(List<AttributeRef> globalPrivateAttributes, int size) {
+    if (size <= 0 || (size & (size - 1)) != 0) {
+      throw new IllegalArgumentException("cache size must be a power of 2");
+    }
+    this.globalPrivateAttributes = globalPrivateAttributes;
+    this.globalOnlyPlan = RedactionPlan.compile(globalPrivateAttributes, new AttributeRef[0]);
+    this.entries = new RedactionPlan[size];
+    this.mask = size - 1;
+  }
+
+  // Returns the plan for a single-kind context, compiling and caching it if necessary.
+  RedactionPlan planFor(LDContext context) {
+    if (context.getPrivateAttributeCount() == 0) {
+      return globalOnlyPlan;
+    }
+    int slot = RedactionPlan.hashPrivateAttributes(context) & mask;
+    RedactionPlan plan = entries[slot];
+    if (plan != null && plan.matches(context)) {
+      hits.incrementAndGet(counterIndex());
+      return plan;
+    }
+    misses.incrementAndGet(counterIndex());
+    plan = RedactionPlan.compile(globalPrivateAttributes, context);
+    entries[slot] = plan;
+    return plan;
+  }
+
+  long getHits() {
+    return sum(hits);
+  }
+
+  long getMisses() {
+    return sum(misses);
+  }
+
+  private static int counterIndex() {
+    return ((int)Thread.currentThread().getId() & (COUNTER_STRIPES - 1)) * COUNTER_SPACING;
+  }
+
+  private static long sum(AtomicLongArray counters) {
+    long total = 0;
+    for (int i = 0; i < counters.length(); i += COUNTER_SPACING) {
+      total += counters.get(i);
+    }
+    return total;
+  }
+}
@@ -0,0 +1,71 @@
+package com.launchdarkly.sdk.json;
+
+import com.launchdarkly.sdk.AttributeRef;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// A set of private attribute references, arranged as a tree of path components so that the redacting
+// serializer can find out whether an attribute or a property within it is private with one map lookup
+// per level, instead of comparing it against every AttributeRef. For instance, the references "/a",
+// "/b/c", and "/b/d" produce a root with children "a" and "b", where "a" is redacted and "b" has
+// redacted children "c" and "d".
+//
+// A node that is redacted has no children, since everything below it is redacted anyway.
+final class RedactionTrie {
+  private Map<String, RedactionTrie> children; // null if none
+  private String redactedRef; // non-null if this node is redacted; the AttributeRef string to report
+
+  private RedactionTrie() {}
+
+  // Returns null if there are no valid references, so callers can skip redaction entirely.
+  static RedactionTrie compile(Iterable<AttributeRef> refs) {
+    RedactionTrie root = null;
+    for (AttributeRef ref: refs) {
+      if (ref == null || !ref.isValid()) {
+        continue;
+      }
+      if (root == null) {
+        root = new RedactionTrie();
+      }
+      root.add(ref);
+    }
+    return root;
+  }
+
+  RedactionTrie child(String name) {
+    return children == null ? null : children.get(name);
+  }
+
+  boolean hasChildren() {
+    return children != null;
+  }
+
+  // Returns the string to report in redactedAttributes if this node is redacted, or null if not.
+  String redactedRef() {
+    return redactedRef;
+  }
+
+  private void add(AttributeRef ref) {
+    RedactionTrie node = this;
+    for (int i = 0; i < ref.getDepth(); i++) {
+      if (node.redactedRef != null) {
+        return; // a parent path is already redacted
+      }
+      if (node.children == null) {
+        node.children = new HashMap<>();
+      }
+      String name = ref.getComponent(i);
+      RedactionTrie child = node.children.get(name);
+      if (child == null) {
+        child = new RedactionTrie();
+        node.children.put(name, child);
+      }
+      node = child;
+    }
+    if (node.redactedRef == null) {
+      node.redactedRef = ref.toString();
+      node.children = null;
+    }
+  }
+}
@@ -9,7 +9,9 @@ import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 @SuppressWarnings("javadoc")
 public class AttributeRefTest extends BaseTest {
@@ -133,4 +135,76 @@ public class AttributeRefTest extends BaseTest {
     }
     TestHelpers.doEqualityTests(testValues);
   }
+  
+  @Test
+  public void repeatedParsingReturnsCachedInstance() {
+    for (String s: new String[] {"a", "/a", "/a/b", "/a~1b", "/a~2b", "//"}) {
+      assertThat(AttributeRef.fromPath(s), sameInstance(AttributeRef.fromPath(s)));
+      assertThat(AttributeRef.fromLiteral(s), sameInstance(AttributeRef.fromLiteral(s)));
+    }
+    assertThat(AttributeRef.fromPath("key"), sameInstance(AttributeRef.fromLiteral("key")));
+    assertThat(AttributeRef.fromPath("/a").toString(), equalTo("/a"));
+    assertThat(AttributeRef.fromLiteral("/a").toString(), equalTo("/~1a"));
+    assertThat(AttributeRef.fromLiteral("/a"), not(equalTo(AttributeRef.fromPath("/a"))));
+  }
+  
+  @Test
+  public void cacheReturnsCachedInstanceAndStaysBounded() {
+    AttributeRefCache cache = new AttributeRefCache(4);
+    AttributeRef ref = AttributeRef.fromPath("/a/b");
+    
+    assertThat(cache.get("/a/b"), nullValue());
+    cache.put("/a/b", ref);
+    assertThat(cache.get("/a/b"), sameInstance(ref));
+    
+    int found = 0;
+    for (int i = 0; i < 100; i++) {
+      cache.put("attr" + i, AttributeRef.fromLiteral("attr" + i));
+    }
+    for (int i = 0; i < 100; i++) {
+      if (cache.get("attr" + i) != null) {
+        found++;
+      }
+    }
+    assertThat(found <= 4, is(true));
+    
+    StringBuilder longName = new StringBuilder();
+    for (int i = 0; i <= AttributeRefCache.MAX_CACHED_STRING_LENGTH; i++) {
+      longName.append('x');
+    }
+    cache.put(longName.toString(), AttributeRef.fromLiteral(longName.toString()));
+    assertThat(cache.get(longName.toString()), nullValue());
+    
+    cache.put("/a/b", ref);
+    cache.clear();
+    assertThat(cache.get("/a/b"), nullValue());
+  }
+  
+  @Test
+  public void cacheCountsHitsAndMisses() throws Exception {
+    final AttributeRefCache cache = new AttributeRefCache(16);
+    cache.put("a", AttributeRef.fromLiteral("a"));
+    cache.get("a");
+    cache.get("b");
+    assertThat(cache.getHits(), equalTo(1L));
+    assertThat(cache.getMisses(), equalTo(1L));
+    
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            cache.get("a");
+            cache.get("b");
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t: threads) {
+      t.join();
+    }
+    assertThat(cache.getHits(), equalTo(4001L));
+    assertThat(cache.getMisses(), equalTo(4001L));
+  }
 }
@@ -99,6 +99,12 @@ public class ContextBuilderTest {
     assertThat(c3.getPrivateAttribute(2), nullValue());
     assertThat(c3.getPrivateAttribute(-1), nullValue());
     
+    // order is preserved, even though it doesn't affect equality
+    LDContext c4 = LDContext.builder("a").privateAttributes("c", "a", "b").build();
+    assertThat(c4.getPrivateAttribute(0), equalTo(AttributeRef.fromLiteral("c")));
+    assertThat(c4.getPrivateAttribute(1), equalTo(AttributeRef.fromLiteral("a")));
+    assertThat(c4.getPrivateAttribute(2), equalTo(AttributeRef.fromLiteral("b")));
+    
     // no-op cases
     assertThat(LDContext.builder("a").privateAttributes((String[])null).build()
         .getPrivateAttributeCount(), equalTo(0));
@@ -0,0 +1,85 @@
+package com.launchdarkly.sdk;
+
+import com.launchdarkly.sdk.json.JsonSerialization;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+@SuppressWarnings("javadoc")
+public class ContextInternerTest extends BaseTest {
+  private static final ContextKind ORG = ContextKind.of("org");
+
+  @Test
+  public void equalContextsReturnFirstInstance() throws Exception {
+    ContextInterner interner = new ContextInterner(100);
+    LDContext c1 = LDContext.createMulti(
+        LDContext.builder("user-key").name("Lucy").set("email", "lucy@example.com").build(),
+        LDContext.create(ORG, "org-key"));
+    LDContext c2 = JsonSerialization.deserialize(JsonSerialization.serialize(c1), LDContext.class);
+    assertThat(c2, not(sameInstance(c1)));
+
+    assertThat(interner.intern(c1), sameInstance(c1));
+    assertThat(interner.intern(c2), sameInstance(c1));
+    assertThat(interner.size(), equalTo(1));
+  }
+
+  @Test
+  public void contextsWithSameKeyButDifferentAttributesAreNotCombined() {
+    ContextInterner interner = new ContextInterner(100);
+    LDContext c1 = LDContext.builder("key").name("a").build();
+    LDContext c2 = LDContext.builder("key").name("b").build();
+
+    assertThat(interner.intern(c1), sameInstance(c1));
+    assertThat(interner.intern(c2), sameInstance(c2));
+    assertThat(interner.size(), equalTo(2));
+  }
+
+  @Test
+  public void nullAndInvalidContextsAreNotStored() {
+    ContextInterner interner = new ContextInterner(100);
+    LDContext invalid = LDContext.create("");
+
+    assertThat(interner.intern(null), nullValue());
+    assertThat(interner.intern(invalid), sameInstance(invalid));
+    assertThat(interner.size(), equalTo(0));
+  }
+
+  @Test
+  public void leastRecentlyUsedContextsAreEvicted() {
+    ContextInterner interner = new ContextInterner(2);
+    LDContext a = LDContext.create("a"), b = LDContext.create("b"), c = LDContext.create("c");
+    interner.intern(a);
+    interner.intern(b);
+    interner.intern(LDContext.create("a")); // a is now more recently used than b
+    interner.intern(c);
+
+    assertThat(interner.size(), equalTo(2));
+    assertThat(interner.intern(LDContext.create("a")), sameInstance(a));
+    assertThat(interner.intern(LDContext.create("c")), sameInstance(c));
+    LDContext b2 = LDContext.create("b");
+    assertThat(interner.intern(b2), sameInstance(b2));
+  }
+
+  @Test
+  public void sizeNeverExceedsCapacity() {
+    for (int capacity: new int[] { 1, 10, 100, 1000 }) {
+      ContextInterner interner = new ContextInterner(capacity);
+      for (int i = 0; i < capacity * 3; i++) {
+        interner.intern(LDContext.create("key" + i));
+      }
+      assertThat(interner.size(), equalTo(capacity));
+      interner.clear();
+      assertThat(interner.size(), equalTo(0));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void capacityMustBePositive() {
+    new ContextInterner(0);
+  }
+}
@@ -30,6 +30,21 @@ public class ContextKindTest {
     assertThat(ContextKind.of("multi"), Matchers.sameInstance(ContextKind.MULTI));
   }
   
+  @Test
+  public void customValuesAreInterned() {
+    ContextKind k = ContextKind.of("org");
+    assertThat(ContextKind.of(new String("org")), Matchers.sameInstance(k));
+    assertThat(LDContext.create(ContextKind.of("org"), "key").getKind(), Matchers.sameInstance(k));
+  }
+  
+  @Test
+  public void invalidValuesAreNotInterned() {
+    ContextKind k = ContextKind.of("o:rg");
+    assertThat(ContextKind.of(new String("o:rg")), Matchers.not(Matchers.sameInstance(k)));
+    assertThat(ContextKind.of("o:rg"), equalTo(k));
+    assertThat(ContextKind.of("kind"), Matchers.not(Matchers.sameInstance(ContextKind.of("kind"))));
+  }
+  
   @Test
   public void isDefault() {
     assertThat(ContextKind.of("abc").isDefault(), is(false));
@@ -37,6 +52,15 @@ public class ContextKindTest {
     assertThat(ContextKind.DEFAULT.isDefault(), is(true));
   }
   
+  @Test
+  public void validateAsSingleKind() {
+    assertThat(ContextKind.DEFAULT.validateAsSingleKind(), Matchers.nullValue());
+    assertThat(ContextKind.of("org_1.a-b").validateAsSingleKind(), Matchers.nullValue());
+    assertThat(ContextKind.MULTI.validateAsSingleKind(), equalTo(Errors.CONTEXT_KIND_MULTI_FOR_SINGLE));
+    assertThat(ContextKind.of("kind").validateAsSingleKind(), equalTo(Errors.CONTEXT_KIND_CANNOT_BE_KIND));
+    assertThat(ContextKind.of("o:rg").validateAsSingleKind(), equalTo(Errors.CONTEXT_KIND_INVALID_CHARS));
+  }
+  
   @Test
   public void equality() {
     List<List<ContextKind>> testValues = new ArrayList<>();
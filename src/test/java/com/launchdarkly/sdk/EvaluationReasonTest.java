@@ -12,10 +12,15 @@ import static com.launchdarkly.sdk.EvaluationReason.Kind.PREREQUISITE_FAILED;
 import static com.launchdarkly.sdk.EvaluationReason.Kind.RULE_MATCH;
 import static com.launchdarkly.sdk.EvaluationReason.Kind.TARGET_MATCH;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static java.util.Arrays.asList;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.launchdarkly.sdk.json.JsonSerialization;
+
 import org.junit.Test;
 
 import java.util.List;
@@ -113,8 +118,58 @@ public class EvaluationReasonTest extends BaseTest {
       EvaluationReason r1 = EvaluationReason.error(errorKind);
       assertSame(r0, r1);
     }
+
+    assertSame(EvaluationReason.ruleMatch(1, "id"), EvaluationReason.ruleMatch(1, "id"));
+    assertSame(EvaluationReason.ruleMatch(1, "id"), EvaluationReason.ruleMatch(1, "id", false));
+    assertSame(EvaluationReason.ruleMatch(1, "id", true), EvaluationReason.ruleMatch(1, "id", true));
+    assertSame(EvaluationReason.ruleMatch(1, null), EvaluationReason.ruleMatch(1, null));
+    assertSame(EvaluationReason.prerequisiteFailed("key"), EvaluationReason.prerequisiteFailed("key"));
+    assertSame(EvaluationReason.fallthrough().withBigSegmentsStatus(HEALTHY),
+        EvaluationReason.fallthrough().withBigSegmentsStatus(HEALTHY));
+    assertSame(EvaluationReason.ruleMatch(1, "id").withBigSegmentsStatus(HEALTHY),
+        EvaluationReason.ruleMatch(1, "id").withBigSegmentsStatus(HEALTHY));
+    assertSame(EvaluationReason.off(), EvaluationReason.off().withBigSegmentsStatus(null));
+  }
+
+  @Test
+  public void internedInstancesHaveCorrectProperties() {
+    // Lots of different reasons, so that some of them will collide in the interning table
+    for (int i = 0; i < 5000; i++) {
+      EvaluationReason r = EvaluationReason.ruleMatch(i % 7, "rule" + i, i % 2 == 0);
+      assertEquals(i % 7, r.getRuleIndex());
+      assertEquals("rule" + i, r.getRuleId());
+      assertEquals(i % 2 == 0, r.isInExperiment());
+      EvaluationReason p = EvaluationReason.prerequisiteFailed("flag" + i).withBigSegmentsStatus(STALE);
+      assertEquals("flag" + i, p.getPrerequisiteKey());
+      assertEquals(STALE, p.getBigSegmentsStatus());
+      assertEquals(PREREQUISITE_FAILED, p.getKind());
+    }
+  }
+
+  @Test
+  public void reasonWithExceptionIsNotInterned() {
+    Exception e = new Exception("sorry");
+    EvaluationReason r = EvaluationReason.exception(e).withBigSegmentsStatus(HEALTHY);
+    assertSame(e, r.getException());
+    assertEquals(HEALTHY, r.getBigSegmentsStatus());
+    assertNotSame(r, EvaluationReason.exception(e).withBigSegmentsStatus(HEALTHY));
   }
   
+  @Test
+  public void jsonIsComputedOnce() {
+    EvaluationReason r = EvaluationReason.ruleMatch(1, "<id>", true).withBigSegmentsStatus(HEALTHY);
+    String json = r.jsonString();
+    assertEquals(JsonSerialization.serialize(r), json);
+    assertEquals(LDValue.parse("{\"kind\":\"RULE_MATCH\",\"ruleIndex\":1,\"ruleId\":\"<id>\"," +
+        "\"inExperiment\":true,\"bigSegmentsStatus\":\"HEALTHY\"}"), LDValue.parse(json));
+    assertSame(json, r.jsonString());
+    assertEquals(json, new Gson().toJson(r));
+    
+    // Gson's tree writer doesn't support raw JSON, so the reason is written field by field
+    JsonElement tree = new Gson().toJsonTree(r);
+    assertEquals(LDValue.parse(json), LDValue.parse(tree.toString()));
+  }
+
   @Test
   public void equalInstancesAreEqual() {
     List<List<EvaluationReason>> testValues = asList(
@@ -108,6 +108,12 @@ public class LDContextTest {
     assertThat(
         LDContext.createMulti(LDContext.create(kind1, "key1"), LDContext.create(kind2, "key:2")).getFullyQualifiedKey(),
         equalTo("kind1:key1:kind2:key%3A2"));
+    assertThat(LDContext.create(kind1, ":%%:").getFullyQualifiedKey(), equalTo("kind1:%3A%25%25%3A"));
+    assertThat(
+        LDContext.createMulti(LDContext.create("key1"), LDContext.create(kind2, "key2")).getFullyQualifiedKey(),
+        equalTo("kind2:key2:user:key1"));
+    assertThat(LDContext.create("").getFullyQualifiedKey(), equalTo(""));
+    assertThat(LDContext.fromUser(new LDUser("abc:d")).getFullyQualifiedKey(), equalTo("abc:d"));
   }
   
   @Test
@@ -254,11 +260,70 @@ public class LDContextTest {
         "/my-attr/my-prop");
   }
   
+  @Test
+  public void getValueForRefPathWithinBuiltInOrEscapedAttribute() {
+    LDContext c = LDContext.builder("my-key").name("my-name")
+        .set("kind", "not-really-the-kind") // this is ignored because "kind" is built-in
+        .set("a/b", LDValue.parse("{\"key\":\"x\"}"))
+        .build();
+    
+    expectAttributeNotFoundForRef(c, "/key/x");
+    expectAttributeNotFoundForRef(c, "/kind/x");
+    expectAttributeNotFoundForRef(c, "/name/x");
+    expectAttributeNotFoundForRef(c, "/anonymous/x");
+    expectAttributeFoundForRef(LDValue.of("x"), c, "/a~1b/key");
+    assertThat(c.getValue(AttributeRef.fromLiteral("/key")), equalTo(LDValue.ofNull()));
+    assertThat(c.getValue(AttributeRef.fromLiteral("key")), equalTo(LDValue.of("my-key")));
+    
+    LDContext multi = LDContext.createMulti(c, LDContext.create(ContextKind.of("org"), "org-key"));
+    expectAttributeNotFoundForRef(multi, "/kind/x");
+  }
+  
+  @Test
+  public void getValueForRefReturnsSameResultOnRepeatedCalls() {
+    LDContext c = LDContext.create(ContextKind.of("org"), "my-key");
+    AttributeRef kindRef = AttributeRef.fromLiteral("kind"), keyRef = AttributeRef.fromLiteral("key");
+    LDValue kindValue = c.getValue(kindRef), keyValue = c.getValue(keyRef);
+    
+    assertThat(kindValue, equalTo(LDValue.of("org")));
+    assertThat(keyValue, equalTo(LDValue.of("my-key")));
+    assertThat(c.getValue(kindRef), sameInstance(kindValue));
+    assertThat(c.getValue(keyRef), sameInstance(keyValue));
+    assertThat(c.getValue("kind"), sameInstance(kindValue));
+    assertThat(c.getValue("key"), sameInstance(keyValue));
+    assertThat(c, equalTo(LDContext.create(ContextKind.of("org"), "my-key")));
+  }
+  
   @Test
   public void getValueForInvalidRef() {
     expectAttributeNotFoundForRef(LDContext.create("key"), "/");
   }
   
+  @Test
+  public void individualContextIndex() {
+    LDContext[] contexts = new LDContext[7];
+    for (int i = 0; i < contexts.length; i++) {
+      contexts[i] = LDContext.create(ContextKind.of("kind" + (contexts.length - i)), "key" + i);
+    }
+    LDContext multi = LDContext.createMulti(contexts);
+    for (LDContext c: contexts) {
+      int index = multi.getIndividualContextIndex(c.getKind());
+      assertThat(multi.getIndividualContext(index), sameInstance(c));
+      assertThat(multi.getIndividualContext(c.getKind()), sameInstance(c));
+      assertThat(multi.getIndividualContext(c.getKind().toString()), sameInstance(c));
+    }
+    assertThat(multi.getIndividualContextIndex(ContextKind.of("kind0")), equalTo(-1));
+    assertThat(multi.getIndividualContextIndex(ContextKind.of("kind8")), equalTo(-1));
+    assertThat(multi.getIndividualContextIndex(ContextKind.of("kind35")), equalTo(-1));
+    assertThat(multi.getIndividualContextIndex(null), equalTo(-1));
+    
+    LDContext single = LDContext.create(kind1, "key");
+    assertThat(single.getIndividualContextIndex(kind1), equalTo(0));
+    assertThat(single.getIndividualContextIndex(kind2), equalTo(-1));
+    assertThat(LDContext.create("key").getIndividualContextIndex(null), equalTo(0));
+    assertThat(LDContext.create("").getIndividualContextIndex(null), equalTo(-1));
+  }
+  
   @Test
   public void multiKindContexts() {
     LDContext c1 = LDContext.create(kind1, "key1");
@@ -332,6 +397,37 @@ public class LDContextTest {
     TestHelpers.doEqualityTests(values);
   }
   
+  @Test
+  public void hashCodeIsIndependentOfAttributeOrder() {
+    ContextBuilder b1 = LDContext.builder("a"), b2 = LDContext.builder("a");
+    String[] privateNames1 = new String[50], privateNames2 = new String[50];
+    for (int i = 0; i < 50; i++) {
+      b1.set("attr" + i, i);
+      b2.set("attr" + (49 - i), 49 - i);
+      privateNames1[i] = "/attr" + i + "/x";
+      privateNames2[49 - i] = privateNames1[i];
+    }
+    LDContext c1 = b1.privateAttributes(privateNames1).build(), c2 = b2.privateAttributes(privateNames2).build();
+    
+    assertThat(c1, equalTo(c2));
+    assertThat(c1.hashCode(), equalTo(c2.hashCode()));
+    assertThat(c1.hashCode(), equalTo(c1.hashCode()));
+  }
+  
+  @Test
+  public void equalityIsNotAffectedByCachedHashCode() {
+    LDContext c1 = LDContext.builder("a").set("b", 1).privateAttributes("x", "y").build();
+    LDContext c2 = LDContext.builder("a").set("b", 1).privateAttributes("y", "x").build();
+    LDContext c3 = LDContext.builder("a").set("b", 2).privateAttributes("x", "y").build();
+    
+    assertThat(c1, equalTo(c2));
+    assertThat(c1.hashCode(), equalTo(c2.hashCode()));
+    assertThat(c1, equalTo(c2));
+    assertThat(c1.equals(c3), is(false));
+    c3.hashCode();
+    assertThat(c1.equals(c3), is(false));
+  }
+  
   static List<List<LDContext>> makeValues() {
     // This awkward pattern of creating every value twice is due to how our current
     // TestHelpers.doEqualityTests() works. When we are able to migrate to using the
@@ -360,6 +456,8 @@ public class LDContextTest {
         LDContext.builder("a").privateAttributes("c", "b").build())); // ordering of private attributes doesn't matter
     values.add(asList(LDContext.builder("a").privateAttributes("b", "d").build(),
         LDContext.builder("a").privateAttributes("b", "d").build()));
+    values.add(asList(LDContext.builder("a").privateAttributes("b", "b").build(),
+        LDContext.builder("a").privateAttributes("b", "b").build())); // duplicates are not ignored
     
     values.add(asList(
         LDContext.createMulti(LDContext.create(kind1, "a"), LDContext.create(kind2, "b")),
@@ -427,6 +525,47 @@ public class LDContextTest {
     assertThat(c3.isAnonymous(), is(true));
   }
   
+  @Test
+  public void contextFromUserIsReusedForSameUser() {
+    LDUser u = new LDUser.Builder("key").email("a@b").custom("c1", "v1").privateCustom("c2", "v2").build();
+    LDContext c = LDContext.fromUser(u);
+    assertThat(LDContext.fromUser(u), sameInstance(c));
+    assertThat(LDContext.fromUser(new LDUser.Builder(u).build()), equalTo(c));
+  }
+  
+  @Test
+  public void contextFromUserHasSameAttributesAsCopiedContext() {
+    LDUser u = new LDUser.Builder("key")
+        .ip("1.2.3.4")
+        .email("a@b")
+        .name("n")
+        .country("US")
+        .custom("email", "override")
+        .custom("c1", LDValue.buildObject().put("p", 1).build())
+        .build();
+    LDContext c = LDContext.fromUser(u);
+    LDContext expected = LDContext.builder("key")
+        .name("n")
+        .set("ip", "1.2.3.4")
+        .set("email", "override")
+        .set("country", "US")
+        .set("c1", LDValue.buildObject().put("p", 1).build())
+        .build();
+    
+    assertThat(c, equalTo(expected));
+    assertThat(expected, equalTo(c));
+    assertThat(c.hashCode(), equalTo(expected.hashCode()));
+    assertThat(c.getCustomAttributeNames(), containsInAnyOrder("ip", "email", "country", "c1"));
+    assertThat(c.getValue("email"), equalTo(LDValue.of("override")));
+    assertThat(c.getValue("avatar"), equalTo(LDValue.ofNull()));
+    assertThat(c.getValue(AttributeRef.fromPath("/c1/p")), equalTo(LDValue.of(1)));
+    assertThat(LDValue.parse(JsonSerialization.serialize(c)), equalTo(LDValue.parse(JsonSerialization.serialize(expected))));
+    
+    LDContext modified = LDContext.builderFromContext(c).set("ip", "5.6.7.8").build();
+    assertThat(modified.getValue("ip"), equalTo(LDValue.of("5.6.7.8")));
+    assertThat(c.getValue("ip"), equalTo(LDValue.of("1.2.3.4")));
+  }
+  
   @Test
   public void contextFromUserErrors() {
     LDContext c1 = LDContext.fromUser(null);
@@ -246,6 +246,20 @@ public class LDUserTest extends BaseTest {
     assertEquals(userWithCustomAttrs, new LDUser.Builder(userWithCustomAttrs).build());
   }
 
+  @Test
+  public void modifyingBuilderAfterBuildDoesNotAffectUser() {
+    LDUser.Builder builder = new LDUser.Builder("key").custom("a", 1).privateCustom("b", 2);
+    LDUser user1 = builder.build();
+    builder.custom("c", 3).privateCustom("d", 4);
+    LDUser user2 = builder.build();
+    
+    assertEquals(setFromIterable(asList(UserAttribute.forName("a"), UserAttribute.forName("b"))),
+        setFromIterable(user1.getCustomAttributes()));
+    assertEquals(setFromIterable(asList(UserAttribute.forName("b"))), setFromIterable(user1.getPrivateAttributes()));
+    assertEquals(4, setFromIterable(user2.getCustomAttributes()).size());
+    assertEquals(2, setFromIterable(user2.getPrivateAttributes()).size());
+  }
+  
   @Test
   public void canSetAnonymous() {
     LDUser user1 = new LDUser.Builder("key").anonymous(true).build();
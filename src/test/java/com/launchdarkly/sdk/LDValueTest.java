@@ -7,7 +7,12 @@ import com.launchdarkly.sdk.json.SerializationException;
 import org.junit.Test;
 
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -214,6 +219,190 @@ public class LDValueTest extends BaseTest {
     }
   }
   
+  @Test
+  public void hashCodeIsStableAndDoesNotAffectEquality() {
+    LDValue o1 = LDValue.buildObject().put("a", LDValue.arrayOf(LDValue.of(1), LDValue.buildObject().put("c", "d").build())).put("b", 2).build();
+    LDValue o2 = LDValue.buildObject().put("a", LDValue.arrayOf(LDValue.of(1), LDValue.buildObject().put("c", "d").build())).put("b", 2).build();
+    LDValue o3 = LDValue.buildObject().put("a", LDValue.arrayOf(LDValue.of(1), LDValue.buildObject().put("c", "d").build())).put("b", 3).build();
+    assertEquals(o1, o2); // before either hash code is computed
+    int h = o1.hashCode();
+    assertEquals(h, o1.hashCode());
+    assertEquals(o1, o2); // only one hash code is computed
+    assertEquals(h, o2.hashCode());
+    assertEquals(o1, o2); // both are computed
+    o3.hashCode();
+    assertNotEquals(o1, o3);
+    assertEquals(LDValue.of("abc").hashCode(), "abc".hashCode());
+  }
+  
+  @Test
+  public void objectsOfAllSizesHaveSameBehavior() {
+    for (int size = 0; size <= 20; size++) {
+      ObjectBuilder forward = LDValue.buildObject(), backward = LDValue.buildObject();
+      for (int i = 0; i < size; i++) {
+        forward.put("key" + i, i);
+        backward.put("key" + (size - 1 - i), size - 1 - i);
+      }
+      LDValue o1 = forward.build(), o2 = backward.build();
+      assertEquals(size, o1.size());
+      assertEquals(o1, o2);
+      assertEquals(o1.hashCode(), o2.hashCode());
+      for (int i = 0; i < size; i++) {
+        assertEquals(LDValue.of(i), o1.get("key" + i));
+      }
+      assertEquals(LDValue.ofNull(), o1.get("key" + size));
+      assertEquals(LDValue.ofNull(), o1.get("a"));
+      assertEquals(LDValue.ofNull(), o1.get((String)null));
+      List<String> keys = new ArrayList<>();
+      List<LDValue> values = new ArrayList<>();
+      for (String k: o1.keys()) {
+        keys.add(k);
+      }
+      for (LDValue v: o1.values()) {
+        values.add(v);
+      }
+      assertEquals(size, keys.size());
+      for (int i = 0; i < size; i++) {
+        assertEquals(o1.get(keys.get(i)), values.get(i));
+      }
+      assertEquals(o1, LDValue.parse(o1.toJsonString()));
+    }
+  }
+  
+  @Test
+  public void objectBuilderCanStillBeModifiedAfterBuildingSmallObject() {
+    ObjectBuilder b = LDValue.buildObject().put("a", 1);
+    LDValue o1 = b.build();
+    b.put("a", 2).put("b", 3);
+    assertEquals(LDValue.buildObject().put("a", 1).build(), o1);
+    assertEquals(2, b.build().size());
+  }
+  
+  @Test
+  public void withAndWithoutMatchEquivalentMap() {
+    // "Aa" and "BB" have the same hash code, so keys made of them exercise hash collisions
+    String[] keyParts = new String[] { "Aa", "BB", "x", "y", "z" };
+    Random random = new Random(1);
+    Map<String, LDValue> expected = new HashMap<>();
+    LDValue value = LDValue.buildObject().build();
+    for (int step = 0; step < 5000; step++) {
+      String key = keyParts[random.nextInt(keyParts.length)] + keyParts[random.nextInt(keyParts.length)] +
+          random.nextInt(random.nextBoolean() ? 3 : 20);
+      LDValue previous = value;
+      String previousJson = previous.toJsonString();
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        value = value.without(key);
+      } else {
+        LDValue v = LDValue.of(step);
+        expected.put(key, v);
+        value = value.with(key, v);
+      }
+      assertEquals(previousJson, previous.toJsonString());
+      assertObjectMatchesMap(expected, value);
+    }
+  }
+  
+  @Test
+  public void withAndWithoutReturnSameInstanceIfNothingChanged() {
+    for (int size: new int[] { 0, 3, 8, 9, 50 }) {
+      ObjectBuilder b = LDValue.buildObject();
+      for (int i = 0; i < size; i++) {
+        b.put("key" + i, i);
+      }
+      LDValue o = b.build();
+      assertSame(o, o.without("nope"));
+      assertSame(o, o.with(null, LDValue.of(1)));
+      assertSame(o, o.without(null));
+      if (size > 0) {
+        assertSame(o, o.with("key0", o.get("key0")));
+      }
+      assertEquals(LDValue.ofNull(), o.with("a", null).get("a"));
+      assertEquals(size + 1, o.with("a", null).size());
+    }
+  }
+  
+  @Test
+  public void withAndWithoutDoNothingForNonObjects() {
+    for (LDValue v: new LDValue[] { LDValue.ofNull(), aTrueBoolValue, anIntValue, aStringValue, anArrayValue }) {
+      assertSame(v, v.with("a", LDValue.of(1)));
+      assertSame(v, v.without("a"));
+    }
+  }
+  
+  @Test
+  public void withIndexMatchesEquivalentList() {
+    for (int size: new int[] { 1, 2, 31, 32, 33, 1024, 1025, 40000 }) {
+      Random random = new Random(size);
+      List<LDValue> expected = new ArrayList<>();
+      ArrayBuilder b = LDValue.buildArray();
+      for (int i = 0; i < size; i++) {
+        expected.add(LDValue.of(i));
+        b.add(i);
+      }
+      LDValue value = b.build();
+      for (int step = 0; step < 200; step++) {
+        int index = random.nextInt(size);
+        LDValue previous = value;
+        LDValue oldElement = previous.get(index);
+        expected.set(index, LDValue.of(-step));
+        value = value.withIndex(index, LDValue.of(-step));
+        assertEquals(oldElement, previous.get(index));
+        assertEquals(size, value.size());
+        assertEquals(LDValue.of(-step), value.get(index));
+      }
+      int i = 0;
+      for (LDValue element: value.values()) {
+        assertEquals(expected.get(i), element);
+        assertEquals(expected.get(i), value.get(i));
+        i++;
+      }
+      assertEquals(size, i);
+      assertEquals(LDValue.ofNull(), value.get(size));
+      assertEquals(LDValue.ofNull(), value.get(-1));
+      assertSame(value, value.withIndex(size, LDValue.of(1)));
+      assertSame(value, value.withIndex(-1, LDValue.of(1)));
+      assertSame(value, value.withIndex(0, value.get(0)));
+      assertEquals(LDValue.ofNull(), value.withIndex(0, null).get(0));
+      assertEquals(value, LDValue.parse(value.toJsonString()));
+    }
+  }
+  
+  @Test
+  public void withIndexDoesNothingForNonArrays() {
+    for (LDValue v: new LDValue[] { LDValue.ofNull(), aTrueBoolValue, anIntValue, aStringValue, anObjectValue,
+        LDValue.arrayOf() }) {
+      assertSame(v, v.withIndex(0, LDValue.of(1)));
+    }
+  }
+  
+  @Test
+  public void arrayOfCopiesInputArray() {
+    LDValue[] elements = new LDValue[] { LDValue.of(1), null };
+    LDValue a = LDValue.arrayOf(elements);
+    elements[0] = LDValue.of(2);
+    assertEquals(LDValue.of(1), a.get(0));
+    assertEquals(LDValue.ofNull(), a.get(1));
+  }
+  
+  private static void assertObjectMatchesMap(Map<String, LDValue> expected, LDValue value) {
+    assertEquals(expected.size(), value.size());
+    for (Map.Entry<String, LDValue> e: expected.entrySet()) {
+      assertEquals(e.getValue(), value.get(e.getKey()));
+    }
+    Map<String, LDValue> actual = new HashMap<>();
+    Iterator<LDValue> values = value.values().iterator();
+    for (String key: value.keys()) {
+      assertTrue(values.hasNext());
+      actual.put(key, values.next());
+    }
+    assertFalse(values.hasNext());
+    assertEquals(expected, actual);
+    LDValue rebuilt = LDValue.parse(value.toJsonString());
+    assertEquals(rebuilt, value);
+    assertEquals(rebuilt.hashCode(), value.hashCode());
+  }
+  
   @Test
   public void equalValuesAreEqual() {
     List<List<LDValue>> testValues = asList(
@@ -237,6 +426,46 @@ public class LDValueTest extends BaseTest {
     assertSame(LDValue.of(""), LDValue.of(""));
   }
   
+  @Test
+  public void smallIntegersAreInterned() {
+    for (int i = -128; i <= 1023; i++) {
+      assertSame(LDValue.of(i), LDValue.of((long)i));
+      assertSame(LDValue.of(i), LDValue.of((double)i));
+      assertSame(LDValue.of(i), LDValue.of((float)i));
+      assertSame(LDValue.of(i), LDValue.parse(String.valueOf(i)));
+    }
+    assertEquals(LDValue.of(1024), LDValue.of(1024L));
+    assertEquals(LDValue.of(-129), LDValue.of(-129L));
+  }
+  
+  @Test
+  public void shortStringValuesAreReused() {
+    // If another string already has this cache slot, it takes a second miss to replace it
+    LDValue.of("on");
+    LDValue.of("on");
+    LDValue a = LDValue.of("on");
+    assertSame(a, LDValue.of(new String("on")));
+    assertSame(a, LDValue.parse("\"on\""));
+    String longString = "a string that is too long to be cached";
+    assertEquals(LDValue.of(longString), LDValue.of(longString));
+  }
+  
+  @Test
+  public void stringSeenOnlyOnceDoesNotReplaceCachedString() {
+    LDValue.of("off");
+    LDValue.of("off");
+    LDValue a = LDValue.of("off");
+    String other = null;
+    for (int i = 0; other == null; i++) {
+      String s = "x" + i;
+      if ((s.hashCode() & 255) == ("off".hashCode() & 255)) {
+        other = s;
+      }
+    }
+    LDValue.of(other);
+    assertSame(a, LDValue.of("off"));
+  }
+  
   @Test
   public void canUseLongTypeForNumberGreaterThanMaxInt() {
     long n = (long)Integer.MAX_VALUE + 1;
@@ -245,6 +474,50 @@ public class LDValueTest extends BaseTest {
     assertEquals(n, LDValue.Convert.Long.fromType(n).longValue());
   }
 
+  @Test
+  public void longValuesArePrecise() {
+    long n = (1L << 53) + 1; // can't be represented exactly as a double
+    LDValue value = LDValue.of(n);
+    assertTrue(value.isInt());
+    assertEquals(n, value.longValue());
+    assertEquals(Long.toString(n), value.toJsonString());
+    assertNotEquals(LDValue.of(n - 1), value);
+    assertNotEquals(LDValue.of((double)n), value);
+    assertEquals(LDValue.of(Long.MAX_VALUE), LDValue.parse(Long.toString(Long.MAX_VALUE)));
+    assertEquals(LDValue.of(Long.MIN_VALUE), LDValue.parse(Long.toString(Long.MIN_VALUE)));
+  }
+  
+  @Test
+  public void integralDoubleIsEquivalentToLong() {
+    long n = (long)Integer.MAX_VALUE * 10;
+    LDValue fromDouble = LDValue.of((double)n);
+    assertTrue(fromDouble.isInt());
+    assertEquals(LDValue.of(n), fromDouble);
+    assertEquals(LDValue.of(n).hashCode(), fromDouble.hashCode());
+    assertEquals(Long.toString(n), fromDouble.toJsonString());
+    assertEquals(LDValue.of(n), LDValue.parse(n + ".0"));
+    assertEquals(LDValue.of(n), LDValue.parse("2.147483647e10"));
+    assertSame(LDValue.of(0), LDValue.of(-0.0d));
+  }
+  
+  @Test
+  public void doubleOutsideOfLongRangeIsNotInt() {
+    for (double d: new double[] { 0x1p63, -0x1p64, 1e300, Double.POSITIVE_INFINITY }) {
+      LDValue value = LDValue.of(d);
+      assertFalse(value.isInt());
+      assertEquals(d, value.doubleValue(), 0);
+    }
+    assertTrue(LDValue.of(-0x1p63).isInt());
+    assertEquals(LDValue.of(1e20), LDValue.parse("100000000000000000000"));
+  }
+  
+  @Test
+  public void intValueOfLargeLongIsClampedLikeDouble() {
+    assertEquals(Integer.MAX_VALUE, LDValue.of((long)Integer.MAX_VALUE + 1).intValue());
+    assertEquals(Integer.MIN_VALUE, LDValue.of((long)Integer.MIN_VALUE - 1).intValue());
+    assertEquals(Integer.MAX_VALUE, LDValue.of(1e15).intValue());
+  }
+  
   @Test
   public void canUseDoubleTypeForNumberGreaterThanMaxFloat() {
     double n = (double)Float.MAX_VALUE + 1;
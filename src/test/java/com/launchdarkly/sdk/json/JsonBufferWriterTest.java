@@ -0,0 +1,151 @@
+package com.launchdarkly.sdk.json;
+
+import com.google.gson.stream.JsonWriter;
+import com.launchdarkly.sdk.BaseTest;
+import com.launchdarkly.sdk.ContextKind;
+import com.launchdarkly.sdk.EvaluationReason;
+import com.launchdarkly.sdk.LDContext;
+import com.launchdarkly.sdk.LDUser;
+import com.launchdarkly.sdk.LDValue;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("javadoc")
+public class JsonBufferWriterTest extends BaseTest {
+  // JsonBufferWriter is supposed to produce exactly the same output that Gson would, not just
+  // equivalent JSON, so these tests compare strings rather than parsed values.
+
+  private static final String STRING_WITH_ESCAPES =
+      "a\"b\\c\t\b\n\r\f\u0001\u001f<>&='\u2028\u2029\u00e9\u4e2d\ud83d\ude00\u007f/";
+
+  @Test
+  public void canWrite() {
+    assertTrue(JsonBufferWriter.canWrite(LDValue.of(1)));
+    assertTrue(JsonBufferWriter.canWrite(LDContext.create("a")));
+    assertTrue(JsonBufferWriter.canWrite(EvaluationReason.off()));
+    assertFalse(JsonBufferWriter.canWrite(null));
+    assertFalse(JsonBufferWriter.canWrite(ContextKind.DEFAULT));
+  }
+
+  @Test
+  public void valuesAreSameAsGson() {
+    verifySameAsGson(LDValue.ofNull());
+    verifySameAsGson(LDValue.of(true));
+    verifySameAsGson(LDValue.of(false));
+    verifySameAsGson(LDValue.of(""));
+    verifySameAsGson(LDValue.of(STRING_WITH_ESCAPES));
+    for (double d: new double[] { 0, 1, -1, 1.5, -2.25, 1e-7, 1e10, 1e300, Integer.MAX_VALUE,
+        Integer.MIN_VALUE, Integer.MAX_VALUE + 1.0d, Long.MAX_VALUE, Long.MIN_VALUE }) {
+      verifySameAsGson(LDValue.of(d));
+    }
+    verifySameAsGson(LDValue.of(3.0f));
+    verifySameAsGson(LDValue.arrayOf());
+    verifySameAsGson(LDValue.buildObject().build());
+    verifySameAsGson(JsonTestHelpers.nestedArrayValue());
+    verifySameAsGson(JsonTestHelpers.nestedObjectValue());
+    verifySameAsGson(LDValue.buildObject().put(STRING_WITH_ESCAPES, STRING_WITH_ESCAPES)
+        .put("n", LDValue.ofNull()).build());
+  }
+
+  @Test
+  public void nonFiniteNumbersAreRejectedLikeGsonJsonWriter() throws Exception {
+    for (double d: new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY }) {
+      LDValue value = LDValue.arrayOf(LDValue.of(d));
+      try {
+        new JsonWriter(new StringWriter()).value(d);
+        fail("expected Gson to throw for " + d);
+      } catch (IllegalArgumentException e) {
+        try {
+          JsonSerialization.serialize(value);
+          fail("expected exception for " + d);
+        } catch (IllegalArgumentException e1) {
+          assertEquals(e.getMessage(), e1.getMessage());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void contextsAreSameAsGson() {
+    verifySameAsGson(LDContext.create("a"));
+    verifySameAsGson(LDContext.builder(ContextKind.of("org"), STRING_WITH_ESCAPES)
+        .name(STRING_WITH_ESCAPES)
+        .anonymous(true)
+        .set(STRING_WITH_ESCAPES, 1)
+        .set("b", JsonTestHelpers.nestedObjectValue())
+        .privateAttributes("/a/b", "c")
+        .build());
+    verifySameAsGson(LDContext.createMulti(
+        LDContext.create("a"),
+        LDContext.builder(ContextKind.of("org"), "b").name("c").privateAttributes("d").build()));
+  }
+
+  @SuppressWarnings("deprecation")
+  @Test
+  public void contextWithCustomAttributeShadowingBuiltInIsLeftToGson() {
+    LDContext c = LDContext.fromUser(new LDUser.Builder("a").name("n").custom("name", "c").build());
+    assertFalse(JsonBufferWriter.canWrite(c));
+    assertFalse(JsonBufferWriter.canWrite(LDContext.createMulti(c, LDContext.create(ContextKind.of("org"), "b"))));
+    assertTrue(JsonBufferWriter.canWrite(LDContext.fromUser(new LDUser.Builder("a").name("n").custom("x", "c").build())));
+    assertEquals(JsonTestHelpers.gson.toJson(c), JsonSerialization.serialize(c));
+    assertTrue(JsonSerialization.serialize(c).contains("\"name\":\"c\""));
+  }
+
+  @Test
+  public void reasonsAreSameAsGson() {
+    verifySameAsGson(EvaluationReason.off());
+    verifySameAsGson(EvaluationReason.fallthrough());
+    verifySameAsGson(EvaluationReason.fallthrough(true));
+    verifySameAsGson(EvaluationReason.targetMatch());
+    verifySameAsGson(EvaluationReason.ruleMatch(1, "id"));
+    verifySameAsGson(EvaluationReason.ruleMatch(1, null, true));
+    verifySameAsGson(EvaluationReason.prerequisiteFailed("key"));
+    verifySameAsGson(EvaluationReason.error(EvaluationReason.ErrorKind.WRONG_TYPE));
+    verifySameAsGson(EvaluationReason.exception(new Exception("sorry")));
+    verifySameAsGson(EvaluationReason.ruleMatch(1, "id")
+        .withBigSegmentsStatus(EvaluationReason.BigSegmentsStatus.STALE));
+  }
+
+  @Test
+  public void cachedReasonJsonIsSameAsGson() {
+    EvaluationReason r = EvaluationReason.ruleMatch(2, "<id>", true)
+        .withBigSegmentsStatus(EvaluationReason.BigSegmentsStatus.HEALTHY);
+    verifySameAsGson(r); // computes the JSON and caches it
+    verifySameAsGson(r); // uses the cached JSON
+  }
+
+  @Test
+  public void largeOutputIsSameAsGson() {
+    StringBuilder s = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      s.append((char)(i % 200));
+    }
+    verifySameAsGson(LDValue.of(s.toString()));
+  }
+
+  @Test
+  public void instanceIsReusedOnSameThread() {
+    JsonBufferWriter w1 = JsonBufferWriter.acquire();
+    w1.write(LDValue.of("abc"));
+    JsonBufferWriter w2 = JsonBufferWriter.acquire();
+    assertNotSame(w1, w2);
+    w1.release();
+    JsonBufferWriter w3 = JsonBufferWriter.acquire();
+    assertSame(w1, w3);
+    assertEquals(0, w3.size());
+    w3.release();
+  }
+
+  private static void verifySameAsGson(Object instance) {
+    assertEquals(JsonTestHelpers.gson.toJson(instance), JsonSerialization.serializeInternal(instance));
+  }
+}
@@ -0,0 +1,286 @@
+package com.launchdarkly.sdk.json;
+
+import com.launchdarkly.sdk.ArrayBuilder;
+import com.launchdarkly.sdk.BaseTest;
+import com.launchdarkly.sdk.EvaluationDetail;
+import com.launchdarkly.sdk.EvaluationReason;
+import com.launchdarkly.sdk.LDContext;
+import com.launchdarkly.sdk.LDValue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("javadoc")
+public class JsonSerializationTest extends BaseTest {
+  // Includes 1-, 2-, 3-, and 4-byte UTF-8 sequences, and characters that are escaped in JSON
+  private static final String NON_ASCII_STRING = "a\u00e9\u4e2d\ud83d\ude00\"\n<";
+
+  @Test
+  public void serializeToStreamProducesUtf8() throws Exception {
+    for (JsonSerializable instance: new JsonSerializable[] {
+        LDValue.of(NON_ASCII_STRING),
+        LDContext.builder(NON_ASCII_STRING).name(NON_ASCII_STRING).build(),
+        EvaluationReason.ruleMatch(0, NON_ASCII_STRING),
+        EvaluationDetail.fromValue(LDValue.of(NON_ASCII_STRING), 1, EvaluationReason.off())
+    }) {
+      byte[] expected = JsonSerialization.serialize(instance).getBytes("UTF-8");
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      JsonSerialization.serializeTo(instance, out);
+      assertArrayEquals(expected, out.toByteArray());
+    }
+  }
+
+  @Test
+  public void serializeToBufferProducesUtf8() throws Exception {
+    for (JsonSerializable instance: new JsonSerializable[] {
+        LDValue.of(NON_ASCII_STRING),
+        EvaluationDetail.fromValue(LDValue.of(NON_ASCII_STRING), 1, EvaluationReason.off())
+    }) {
+      byte[] expected = JsonSerialization.serialize(instance).getBytes("UTF-8");
+      for (ByteBuffer buffer: new ByteBuffer[] { ByteBuffer.allocate(1000), ByteBuffer.allocateDirect(1000) }) {
+        buffer.position(3);
+        JsonSerialization.serializeTo(instance, buffer);
+        assertEquals(3 + expected.length, buffer.position());
+        byte[] actual = new byte[expected.length];
+        buffer.position(3);
+        buffer.get(actual);
+        assertArrayEquals(expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void serializeLargeValueToStreamAndBuffer() throws Exception {
+    StringBuilder s = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      s.append(NON_ASCII_STRING);
+    }
+    LDValue value = LDValue.of(s.toString());
+    byte[] expected = JsonSerialization.serialize(value).getBytes("UTF-8");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonSerialization.serializeTo(value, out);
+    assertArrayEquals(expected, out.toByteArray());
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length);
+    JsonSerialization.serializeTo(value, buffer);
+    byte[] actual = new byte[expected.length];
+    buffer.flip();
+    buffer.get(actual);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  public void largeDocumentIsWrittenToStreamInChunks() throws Exception {
+    // Many short strings of varying lengths, so that the chunk boundaries fall in different places,
+    // including between the two halves of a surrogate pair
+    ArrayBuilder ab = LDValue.buildArray();
+    StringBuilder s = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      s.append(i % 2 == 0 ? "a" : NON_ASCII_STRING);
+      ab.add(s.length() > 40 ? s.substring(s.length() - 40) : s.toString());
+    }
+    final LDValue value = ab.build();
+    byte[] expected = JsonSerialization.serialize(value).getBytes("UTF-8");
+    assertThat(expected.length, greaterThan(100000));
+
+    final List<Integer> writeSizes = new ArrayList<>();
+    ByteArrayOutputStream out = new ByteArrayOutputStream() {
+      @Override
+      public synchronized void write(byte[] b, int off, int len) {
+        writeSizes.add(len);
+        super.write(b, off, len);
+      }
+    };
+    JsonSerialization.serializeTo(value, out);
+    assertArrayEquals(expected, out.toByteArray());
+    assertThat(writeSizes.size(), greaterThan(10));
+    for (int n: writeSizes) {
+      assertTrue(n <= 8192);
+    }
+
+    for (ByteBuffer buffer: new ByteBuffer[] { ByteBuffer.allocate(expected.length + 1),
+        ByteBuffer.allocateDirect(expected.length + 1) }) {
+      buffer.position(1);
+      JsonSerialization.serializeTo(value, buffer);
+      assertEquals(expected.length + 1, buffer.position());
+      byte[] actual = new byte[expected.length];
+      buffer.position(1);
+      buffer.get(actual);
+      assertArrayEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void largeDocumentThatOverflowsBufferLeavesPositionUnchanged() throws Exception {
+    ArrayBuilder ab = LDValue.buildArray();
+    for (int i = 0; i < 5000; i++) {
+      ab.add(NON_ASCII_STRING);
+    }
+    LDValue value = ab.build();
+    for (JsonSerializable instance: new JsonSerializable[] {
+        value, EvaluationDetail.fromValue(value, 1, EvaluationReason.off())
+    }) {
+      int length = JsonSerialization.serialize(instance).getBytes("UTF-8").length;
+      for (ByteBuffer buffer: new ByteBuffer[] { ByteBuffer.allocate(length - 1), ByteBuffer.allocateDirect(length - 1) }) {
+        buffer.position(2);
+        try {
+          JsonSerialization.serializeTo(instance, buffer);
+          fail("expected exception");
+        } catch (BufferOverflowException e) {}
+        assertEquals(2, buffer.position());
+      }
+    }
+  }
+
+  @Test
+  public void streamExceptionIsRethrown() throws Exception {
+    ArrayBuilder ab = LDValue.buildArray();
+    for (int i = 0; i < 5000; i++) {
+      ab.add(NON_ASCII_STRING);
+    }
+    final IOException error = new IOException("sorry");
+    OutputStream out = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw error;
+      }
+    };
+    try {
+      JsonSerialization.serializeTo(ab.build(), out);
+      fail("expected exception");
+    } catch (IOException e) {
+      assertSame(error, e);
+    }
+  }
+
+  @Test
+  public void unpairedSurrogateIsEncodedSameAsString() throws Exception {
+    LDValue value = LDValue.of("a\ud83db\ude00");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonSerialization.serializeTo(value, out);
+    assertArrayEquals(JsonSerialization.serialize(value).getBytes("UTF-8"), out.toByteArray());
+  }
+
+  @Test
+  public void serializeToBufferThatIsTooSmallWritesNothing() {
+    ByteBuffer buffer = ByteBuffer.allocate(5);
+    try {
+      JsonSerialization.serializeTo(LDValue.of("abcdef"), buffer);
+      fail("expected exception");
+    } catch (BufferOverflowException e) {}
+    assertEquals(0, buffer.position());
+    try {
+      JsonSerialization.serializeTo(EvaluationDetail.fromValue(LDValue.of(1), 1, EvaluationReason.off()), buffer);
+      fail("expected exception");
+    } catch (BufferOverflowException e) {}
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  public void deserializeUtf8() throws Exception {
+    String json = LDValue.of(NON_ASCII_STRING).toJsonString();
+    byte[] bytes = json.getBytes("UTF-8");
+    LDValue expected = LDValue.of(NON_ASCII_STRING);
+
+    assertEquals(expected, JsonSerialization.deserialize(bytes, LDValue.class));
+    assertEquals(expected, JsonSerialization.deserialize(new ByteArrayInputStream(bytes), LDValue.class));
+
+    ByteBuffer heapBuffer = ByteBuffer.allocate(bytes.length + 4);
+    heapBuffer.position(2);
+    heapBuffer.put(bytes);
+    heapBuffer.position(2);
+    heapBuffer.limit(2 + bytes.length);
+    assertEquals(expected, JsonSerialization.deserialize(heapBuffer.slice(), LDValue.class));
+    assertEquals(expected, JsonSerialization.deserialize(heapBuffer, LDValue.class));
+    assertEquals(2, heapBuffer.position());
+
+    ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length);
+    directBuffer.put(bytes);
+    directBuffer.flip();
+    assertEquals(expected, JsonSerialization.deserialize(directBuffer, LDValue.class));
+    assertEquals(0, directBuffer.position());
+  }
+
+  @Test
+  public void deserializeStreamDoesNotCloseStream() throws Exception {
+    final boolean[] closed = new boolean[1];
+    InputStream stream = new ByteArrayInputStream("true".getBytes("UTF-8")) {
+      @Override
+      public void close() throws IOException {
+        closed[0] = true;
+      }
+    };
+    assertEquals(LDValue.of(true), JsonSerialization.deserialize(stream, LDValue.class));
+    assertEquals(false, closed[0]);
+  }
+
+  @Test
+  public void deserializeEmptyOrNullInput() throws Exception {
+    verifyDeserializeError(new byte[0]);
+    verifyDeserializeError("   ".getBytes("UTF-8"));
+    try {
+      JsonSerialization.deserialize((byte[])null, LDValue.class);
+      fail("expected exception");
+    } catch (SerializationException e) {}
+    try {
+      JsonSerialization.deserialize((ByteBuffer)null, LDValue.class);
+      fail("expected exception");
+    } catch (SerializationException e) {}
+    try {
+      JsonSerialization.deserialize((InputStream)null, LDValue.class);
+      fail("expected exception");
+    } catch (SerializationException e) {}
+  }
+
+  @Test
+  public void deserializeInputWithExtraData() throws Exception {
+    verifyDeserializeError("[1] [2]".getBytes("UTF-8"));
+  }
+
+  @Test
+  public void deserializeStreamError() {
+    InputStream stream = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("sorry");
+      }
+    };
+    try {
+      JsonSerialization.deserialize(stream, LDValue.class);
+      fail("expected exception");
+    } catch (SerializationException e) {}
+  }
+
+  private static void verifyDeserializeError(byte[] bytes) {
+    try {
+      JsonSerialization.deserialize(bytes, LDValue.class);
+      fail("expected exception from byte array");
+    } catch (SerializationException e) {}
+    try {
+      JsonSerialization.deserialize(ByteBuffer.wrap(bytes), LDValue.class);
+      fail("expected exception from ByteBuffer");
+    } catch (SerializationException e) {}
+    try {
+      JsonSerialization.deserialize(new ByteArrayInputStream(bytes), LDValue.class);
+      fail("expected exception from stream");
+    } catch (SerializationException e) {}
+  }
+}
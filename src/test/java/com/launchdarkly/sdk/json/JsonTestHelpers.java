@@ -10,6 +10,10 @@ import com.google.gson.JsonSyntaxException;
 import com.launchdarkly.sdk.BaseTest;
 import com.launchdarkly.sdk.LDValue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -43,6 +47,10 @@ public abstract class JsonTestHelpers extends BaseTest {
     // but since some of our tests are testing LDValue itself, we can't assume that its behavior is correct. 
     assertJsonEquals(expectedJsonString, JsonSerialization.serialize(instance));
     
+    assertJsonEquals(expectedJsonString, serializeToUtf8Stream(instance));
+    
+    assertJsonEquals(expectedJsonString, serializeToUtf8Buffer(instance));
+    
     assertJsonEquals(expectedJsonString, configureGson().toJson(instance));
     
     assertJsonEquals(expectedJsonString, configureJacksonMapper().writeValueAsString(instance));
@@ -71,6 +79,11 @@ public abstract class JsonTestHelpers extends BaseTest {
     T instance1 = JsonSerialization.deserialize(expectedJsonString, objectClass);
     assertEquals(instance, instance1);
     
+    byte[] bytes = expectedJsonString.getBytes("UTF-8");
+    assertEquals(instance, JsonSerialization.deserialize(bytes, objectClass));
+    assertEquals(instance, JsonSerialization.deserialize(ByteBuffer.wrap(bytes), objectClass));
+    assertEquals(instance, JsonSerialization.deserialize(new ByteArrayInputStream(bytes), objectClass));
+    
     T instance2 = configureGson().fromJson(expectedJsonString, objectClass);
     assertEquals(instance, instance2);
     
@@ -84,6 +97,10 @@ public abstract class JsonTestHelpers extends BaseTest {
       JsonSerialization.deserialize(invalidJsonString, objectClass);
       fail("expected SerializationException");
     } catch (SerializationException e) {}
+    try {
+      JsonSerialization.deserialize(invalidJsonString.getBytes("UTF-8"), objectClass);
+      fail("expected SerializationException from byte array");
+    } catch (SerializationException e) {}
     try {
       configureGson().fromJson(invalidJsonString, objectClass);
       fail("expected JsonParseException from Gson");
@@ -94,6 +111,18 @@ public abstract class JsonTestHelpers extends BaseTest {
     } catch (JsonProcessingException e) {}    
   }
   
+  public static String serializeToUtf8Stream(JsonSerializable instance) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonSerialization.serializeTo(instance, out);
+    return new String(out.toByteArray(), "UTF-8");
+  }
+  
+  public static String serializeToUtf8Buffer(JsonSerializable instance) throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocate(100000);
+    JsonSerialization.serializeTo(instance, buffer);
+    return new String(buffer.array(), 0, buffer.position(), "UTF-8");
+  }
+  
   public static void assertJsonEquals(String expectedJsonString, String actualJsonString) {
     try {
       JsonElement actualParsed = parseElement(actualJsonString);
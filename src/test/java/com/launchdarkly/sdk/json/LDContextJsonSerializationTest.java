@@ -73,6 +73,25 @@ public class LDContextJsonSerializationTest {
         "{\"kind\":\"multi\",\"kind1\":{\"key\":\"a\"},\"kind2\":{\"key\":\"b\"}}");
   }
   
+  @Test
+  public void kindPropertyDoesNotHaveToBeFirst() throws Exception {
+    verifyDeserialize(
+        LDContext.builder(kind1, "a").name("b").set("c", true).build(),
+        "{\"key\":\"a\",\"name\":\"b\",\"c\":true,\"kind\":\"kind1\"}");
+
+    verifyDeserialize(
+        LDContext.builder(kind1, "a").name("b").set("c", true).build(),
+        "{\"key\":\"a\",\"kind\":\"kind1\",\"name\":\"b\",\"c\":true}");
+
+    verifyDeserialize(
+        LDContext.createMulti(LDContext.create(kind1, "a"), LDContext.create(kind2, "b")),
+        "{\"kind1\":{\"key\":\"a\"},\"kind\":\"multi\",\"kind2\":{\"key\":\"b\"}}");
+
+    verifyDeserialize(
+        LDContext.createMulti(LDContext.create(kind1, "a"), LDContext.create(kind2, "b")),
+        "{\"kind1\":{\"key\":\"a\"},\"kind2\":{\"key\":\"b\"},\"kind\":\"multi\"}");
+  }
+  
   @Test
   public void convertOldUser() throws Exception {
     verifyDeserialize(LDContext.create("a"), "{\"key\":\"a\"}");
@@ -103,12 +122,47 @@ public class LDContextJsonSerializationTest {
     verifyDeserialize(LDContext.builder("a").privateAttributes("b").build(),
         "{\"key\":\"a\",\"privateAttributeNames\":[\"b\"]}");
     
+    verifyDeserialize(
+        LDContext.builder("a").name("n").set("email", "e").set("b", 1).set("c", true).privateAttributes("b").build(),
+        "{\"custom\":{\"b\":1,\"c\":true},\"email\":\"e\",\"privateAttributeNames\":[\"b\"],\"key\":\"a\",\"name\":\"n\"}");
+    
+    verifyDeserialize(LDContext.builder("a").set("email", "e").build(),
+        "{\"key\":\"a\",\"email\":\"e\",\"custom\":null}");
+    
+    // built-in attributes take precedence over custom ones, regardless of property order
+    verifyDeserialize(LDContext.builder("a").name("n").set("email", "e").build(),
+        "{\"custom\":{\"name\":\"c\",\"email\":\"f\"},\"key\":\"a\",\"name\":\"n\",\"email\":\"e\"}");
+    verifyDeserialize(LDContext.builder("a").name("n").build(),
+        "{\"key\":\"a\",\"name\":\"n\",\"custom\":{\"name\":\"c\"}}");
+    verifyDeserialize(LDContext.builder("x").name("n").build(),
+        "{\"key\":\"x\",\"custom\":{\"name\":\"c\"},\"name\":\"n\"}");
+    
+    // if a property appears more than once, the last value wins
+    verifyDeserialize(LDContext.builder("a").name("m").set("b", 2).build(),
+        "{\"key\":\"a\",\"name\":\"n\",\"custom\":{\"b\":1},\"name\":\"m\",\"custom\":{\"b\":2}}");
+    
     // For old user JSON only, an empty key is allowed; an LDContext can't be constructed in this state.
     LDContext contextWithEmptyKey = JsonSerialization.deserialize("{\"key\":\"\"}", LDContext.class);
     assertTrue(contextWithEmptyKey.isValid());
     assertEquals("", contextWithEmptyKey.getKey());
   }
   
+  @Test
+  public void propertiesThatLookLikeOldUserAreTreatedAsAttributesIfKindIsFoundLater() throws Exception {
+    verifyDeserialize(
+        LDContext.builder(ContextKind.of("org"), "a")
+          .set("custom", LDValue.buildObject().put("b", 1).build())
+          .set("privateAttributeNames", LDValue.arrayOf(LDValue.of("c")))
+          .build(),
+        "{\"custom\":{\"b\":1},\"privateAttributeNames\":[\"c\"],\"kind\":\"org\",\"key\":\"a\"}");
+    
+    verifyDeserialize(
+        LDContext.createMulti(
+            LDContext.builder(ContextKind.of("org"), "a").build(),
+            LDContext.builder(ContextKind.of("custom"), "b").set("c", 1).build()),
+        "{\"custom\":{\"key\":\"b\",\"c\":1},\"kind\":\"multi\",\"org\":{\"key\":\"a\"}}");
+  }
+  
   @Test(expected=JsonIOException.class)
   public void serializeInvalidContext() throws Exception {
     JsonSerialization.serialize(LDContext.create(""));
@@ -142,8 +196,35 @@ public class LDContextJsonSerializationTest {
     }
   }
   
+  @Test
+  public void deserializationErrorMessagesDoNotDependOnPropertyOrder() throws Exception {
+    String[][] pairs = new String[][] {
+      { "{\"kind\":\"a\",\"key\":3}", "{\"key\":3,\"kind\":\"a\"}" },
+      { "{\"kind\":\"a\",\"key\":\"b\",\"name\":3}", "{\"name\":3,\"key\":\"b\",\"kind\":\"a\"}" },
+      { "{\"kind\":\"a\",\"key\":\"b\",\"anonymous\":\"x\"}", "{\"anonymous\":\"x\",\"kind\":\"a\",\"key\":\"b\"}" },
+      { "{\"kind\":\"a\",\"key\":\"b\",\"_meta\":\"x\"}", "{\"_meta\":\"x\",\"kind\":\"a\",\"key\":\"b\"}" },
+      { "{\"kind\":\"multi\",\"kind1\":3}", "{\"kind1\":3,\"kind\":\"multi\"}" },
+      { "{\"kind\":\"\",\"key\":\"a\"}", "{\"key\":\"a\",\"kind\":\"\"}" }
+    };
+    for (String[] pair: pairs) {
+      assertEquals(getDeserializationError(pair[0]), getDeserializationError(pair[1]));
+    }
+    assertEquals("expected STRING, found NUMBER for key", getDeserializationError(pairs[0][0]));
+    assertEquals("expected OBJECT, found NUMBER for kind1", getDeserializationError(pairs[4][0]));
+  }
+  
   @Test(expected=SerializationException.class)
   public void deserializeContextWithTypeError() throws Exception {
     JsonSerialization.deserialize("{\"kind\":\"a\",\"key\":3}", LDContext.class);
   }
+  
+  private static String getDeserializationError(String json) {
+    try {
+      JsonSerialization.deserialize(json, LDContext.class);
+    } catch (SerializationException e) {
+      return e.getCause().getMessage();
+    }
+    fail("expected deserialization to fail, but it passed, for JSON: " + json);
+    return null;
+  }
 }
@@ -7,9 +7,12 @@ import com.google.gson.JsonSyntaxException;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import com.launchdarkly.sdk.ArrayBuilder;
+import com.launchdarkly.sdk.EvaluationDetail;
 import com.launchdarkly.sdk.EvaluationReason;
 import com.launchdarkly.sdk.LDContext;
 import com.launchdarkly.sdk.LDValue;
+import com.launchdarkly.sdk.ObjectBuilder;
 
 import org.junit.Test;
 
@@ -47,6 +50,40 @@ public class LDGsonTest {
     assertEquals(JsonNull.INSTANCE, LDGson.valueToJsonElement(null));
   }
   
+  @Test
+  public void largeValueToJsonTree() {
+    ArrayBuilder ab = LDValue.buildArray();
+    ObjectBuilder ob = LDValue.buildObject();
+    for (int i = 0; i < 20; i++) {
+      ab.add(i);
+      ob.put("p" + i, i);
+    }
+    LDValue largeArray = ab.build(), largeObject = ob.build();
+    // make sure the JSON is cached before we go through Gson, which must not use it
+    largeArray.toJsonString();
+    largeObject.toJsonString();
+    verifyValueSerialization(largeArray);
+    verifyValueSerialization(largeObject);
+    
+    LDContext context = LDContext.builder("key").set("a", largeArray).set("o", largeObject).build();
+    JsonElement j = JsonTestHelpers.configureGson().toJsonTree(context);
+    assertEquals(LDValue.parse(JsonSerialization.serialize(context)), LDValue.parse(JsonTestHelpers.gson.toJson(j)));
+  }
+  
+  @Test
+  public void reasonToJsonTree() {
+    EvaluationReason reason = EvaluationReason.ruleMatch(1, "id", true);
+    String expected = JsonSerialization.serialize(reason);
+    JsonTestHelpers.gson.toJson(reason); // makes the reason cache its JSON
+    JsonElement j = JsonTestHelpers.configureGson().toJsonTree(reason);
+    JsonTestHelpers.assertJsonEquals(expected, JsonTestHelpers.gson.toJson(j));
+    
+    EvaluationDetail<String> detail = EvaluationDetail.fromValue("x", 0, reason);
+    JsonElement j2 = JsonTestHelpers.configureGson().toJsonTree(detail);
+    JsonTestHelpers.assertJsonEquals("{\"value\":\"x\",\"variationIndex\":0,\"reason\":" + expected + "}",
+        JsonTestHelpers.gson.toJson(j2));
+  }
+  
   @Test
   public void valueMapToJsonElementMap() {
     Map<String, LDValue> m1 = new HashMap<>();
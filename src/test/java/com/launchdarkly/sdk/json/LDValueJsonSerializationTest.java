@@ -1,7 +1,9 @@
 package com.launchdarkly.sdk.json;
 
+import com.launchdarkly.sdk.ArrayBuilder;
 import com.launchdarkly.sdk.BaseTest;
 import com.launchdarkly.sdk.LDValue;
+import com.launchdarkly.sdk.ObjectBuilder;
 
 import org.junit.Test;
 
@@ -10,6 +12,8 @@ import static com.launchdarkly.sdk.json.JsonTestHelpers.verifyDeserializeInvalid
 import static com.launchdarkly.sdk.json.JsonTestHelpers.verifySerialize;
 import static com.launchdarkly.sdk.json.JsonTestHelpers.verifySerializeAndDeserialize;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 @SuppressWarnings("javadoc")
 public class LDValueJsonSerializationTest extends BaseTest {
@@ -35,6 +39,71 @@ public class LDValueJsonSerializationTest extends BaseTest {
     verifyDeserializeInvalidJson(LDValue.class, "]");
   }
   
+  @Test
+  public void largeIntegersArePrecise() throws Exception {
+    verifyValueSerialization(LDValue.of(Long.MAX_VALUE), "9223372036854775807");
+    verifyValueSerialization(LDValue.of(Long.MIN_VALUE), "-9223372036854775808");
+    verifyValueSerialization(LDValue.of((1L << 53) + 1), "9007199254740993");
+    verifyValueSerialization(LDValue.buildArray().add(LDValue.of(1234567890123456789L)).build(),
+        "[1234567890123456789]");
+  }
+  
+  @Test
+  public void largeArraysAndObjectsCacheTheirJson() throws Exception {
+    ArrayBuilder ab = LDValue.buildArray();
+    ObjectBuilder ob = LDValue.buildObject();
+    StringBuilder arrayJson = new StringBuilder("[");
+    StringBuilder objectJson = new StringBuilder("{");
+    for (int i = 0; i < 20; i++) {
+      ab.add(i);
+      ob.put("<" + i, i);
+      arrayJson.append(i == 0 ? "" : ",").append(i);
+      objectJson.append(i == 0 ? "" : ",").append("\"<").append(i).append("\":").append(i);
+    }
+    LDValue largeArray = ab.build(), largeObject = ob.build();
+    String expectedArrayJson = arrayJson.append("]").toString();
+    String expectedObjectJson = objectJson.append("}").toString();
+
+    verifyValueSerialization(largeArray, expectedArrayJson);
+    verifyValueSerialization(largeObject, expectedObjectJson);
+    assertSame(largeArray.toJsonString(), largeArray.toJsonString());
+    assertSame(largeObject.toJsonString(), largeObject.toJsonString());
+
+    // nested values are written from the cache, with the same escaping as usual
+    LDValue container = LDValue.buildObject().put("a", largeArray).put("b",
+        LDValue.arrayOf(largeObject, largeObject)).build();
+    verifyValueSerialization(container,
+        "{\"a\":" + expectedArrayJson + ",\"b\":[" + expectedObjectJson + "," + expectedObjectJson + "]}");
+    assertEquals("{\"a\":" + largeArray.toJsonString() + ",\"b\":[\"\\u003c\"]}",
+        LDValue.buildObject().put("a", largeArray).put("b", LDValue.arrayOf(LDValue.of("<"))).build().toJsonString());
+
+    // a modified copy doesn't reuse the original's JSON
+    assertEquals(expectedArrayJson.replace("[0,", "[99,"), largeArray.withIndex(0, LDValue.of(99)).toJsonString());
+  }
+
+  @Test
+  public void smallArraysAndObjectsDoNotCacheTheirJson() throws Exception {
+    LDValue a = LDValue.arrayOf(LDValue.of(1));
+    LDValue o = LDValue.buildObject().put("a", 1).build();
+    assertNotSame(a.toJsonString(), a.toJsonString());
+    assertNotSame(o.toJsonString(), o.toJsonString());
+  }
+
+  @Test
+  public void jsonIsNotCachedAsASideEffect() throws Exception {
+    ArrayBuilder ab = LDValue.buildArray();
+    for (int i = 0; i < 20; i++) {
+      ab.add(i);
+    }
+    LDValue largeArray = ab.build();
+    JsonSerialization.serialize(LDValue.arrayOf(largeArray));
+    JsonTestHelpers.gson.toJson(largeArray);
+    assertNotSame(largeArray.toString(), largeArray.toString());
+    
+    String json = largeArray.toJsonString();
+    assertSame(json, largeArray.toString());
+  }
+
   private static void verifyValueSerialization(LDValue value, String expectedJsonString) throws Exception {
     verifySerializeAndDeserialize(value, expectedJsonString);
     assertEquals(parseElement(expectedJsonString), parseElement(value.toJsonString()));
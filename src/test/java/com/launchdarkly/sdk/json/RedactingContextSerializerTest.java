@@ -0,0 +1,164 @@
+package com.launchdarkly.sdk.json;
+
+import com.google.gson.JsonIOException;
+import com.launchdarkly.sdk.AttributeRef;
+import com.launchdarkly.sdk.BaseTest;
+import com.launchdarkly.sdk.ContextKind;
+import com.launchdarkly.sdk.LDContext;
+import com.launchdarkly.sdk.LDValue;
+import com.launchdarkly.sdk.LDValueType;
+import com.launchdarkly.sdk.ObjectBuilder;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SuppressWarnings("javadoc")
+public class RedactingContextSerializerTest extends BaseTest {
+  private static final LDValue ADDRESS = LDValue.parse("{\"street\":\"s\",\"city\":\"c\",\"geo\":{\"lat\":1,\"long\":2}}");
+
+  private static final LDContext CONTEXT = LDContext.builder("my-key")
+      .name("n")
+      .anonymous(true)
+      .set("email", "e")
+      .set("address", ADDRESS)
+      .set("tags", LDValue.arrayOf(LDValue.of("x")))
+      .build();
+
+  @Test
+  public void noPrivateAttributesIsSameAsRegularSerializationWithoutMeta() {
+    RedactingContextSerializer s = new RedactingContextSerializer(false, null);
+    verify(s, CONTEXT, JsonSerialization.serialize(CONTEXT));
+  }
+
+  @Test
+  public void contextPrivateAttributeMetadataIsNotIncluded() {
+    LDContext c = LDContext.builder("my-key").privateAttributes("email").build();
+    RedactingContextSerializer s = new RedactingContextSerializer(false, null);
+    verify(s, c, "{\"kind\":\"user\",\"key\":\"my-key\"}");
+  }
+
+  @Test
+  public void globalTopLevelAttributesAreRedacted() {
+    RedactingContextSerializer s = new RedactingContextSerializer(false, refs("name", "email", "address", "missing"));
+    verify(s, CONTEXT, "{\"kind\":\"user\",\"key\":\"my-key\",\"anonymous\":true,\"tags\":[\"x\"]," +
+        "\"_meta\":{\"redactedAttributes\":[\"name\",\"email\",\"address\"]}}");
+  }
+
+  @Test
+  public void contextTopLevelAttributesAreRedacted() {
+    LDContext c = LDContext.builderFromContext(CONTEXT).privateAttributes("email", "tags").build();
+    RedactingContextSerializer s = new RedactingContextSerializer(false, null);
+    verify(s, c, "{\"kind\":\"user\",\"key\":\"my-key\",\"name\":\"n\",\"anonymous\":true," +
+        "\"address\":" + ADDRESS.toJsonString() + ",\"_meta\":{\"redactedAttributes\":[\"email\",\"tags\"]}}");
+  }
+
+  @Test
+  public void nestedPropertiesAreRedacted() {
+    LDContext c = LDContext.builderFromContext(CONTEXT).privateAttributes("/address/geo/lat").build();
+    RedactingContextSerializer s = new RedactingContextSerializer(false,
+        refs("/address/street", "/address/nope", "/email/x", "/tags/0"));
+    verify(s, c, "{\"kind\":\"user\",\"key\":\"my-key\",\"name\":\"n\",\"anonymous\":true,\"email\":\"e\"," +
+        "\"address\":{\"city\":\"c\",\"geo\":{\"long\":2}},\"tags\":[\"x\"]," +
+        "\"_meta\":{\"redactedAttributes\":[\"/address/street\",\"/address/geo/lat\"]}}");
+  }
+
+  @Test
+  public void wholeAttributeTakesPrecedenceOverNestedProperty() {
+    RedactingContextSerializer s = new RedactingContextSerializer(false, refs("/address/street", "address"));
+    LDContext c = LDContext.builder("my-key").set("address", ADDRESS).build();
+    verify(s, c, "{\"kind\":\"user\",\"key\":\"my-key\",\"_meta\":{\"redactedAttributes\":[\"address\"]}}");
+  }
+
+  @Test
+  public void builtInAttributesOtherThanNameCannotBeRedacted() {
+    RedactingContextSerializer s = new RedactingContextSerializer(false, refs("kind", "key", "anonymous", "/key/x"));
+    LDContext c = LDContext.builder("my-key").anonymous(true).build();
+    verify(s, c, "{\"kind\":\"user\",\"key\":\"my-key\",\"anonymous\":true}");
+  }
+
+  @Test
+  public void allAttributesPrivate() {
+    RedactingContextSerializer s = new RedactingContextSerializer(true, null);
+    LDContext c = LDContext.builder("my-key").name("n").anonymous(true).set("/a", 1).build();
+    verify(s, c, "{\"kind\":\"user\",\"key\":\"my-key\",\"anonymous\":true," +
+        "\"_meta\":{\"redactedAttributes\":[\"name\",\"/~1a\"]}}");
+  }
+
+  @Test
+  public void multiKindContext() {
+    LDContext c = LDContext.createMulti(
+        LDContext.builder("user-key").set("email", "e").set("x", 1).privateAttributes("x").build(),
+        LDContext.builder(ContextKind.of("org"), "org-key").set("email", "f").set("x", 2).build());
+    RedactingContextSerializer s = new RedactingContextSerializer(false, refs("email"));
+    verify(s, c, "{\"kind\":\"multi\"," +
+        "\"org\":{\"key\":\"org-key\",\"x\":2,\"_meta\":{\"redactedAttributes\":[\"email\"]}}," +
+        "\"user\":{\"key\":\"user-key\",\"_meta\":{\"redactedAttributes\":[\"email\",\"x\"]}}}");
+  }
+
+  @Test
+  public void stringsAreEscapedTheSameAsInRegularSerialization() {
+    LDContext c = LDContext.builder("< \"").name("\u00e9").set("\\", LDValue.parse("{\"<\":\"&\",\"a\":1}")).build();
+    RedactingContextSerializer s = new RedactingContextSerializer(false, refs("/\\/a"));
+    LDContext expectedEquivalent = LDContext.builder("< \"").name("\u00e9").set("\\", LDValue.parse("{\"<\":\"&\"}"))
+        .build();
+    String expected = JsonSerialization.serialize(expectedEquivalent);
+    verify(s, c, expected.substring(0, expected.length() - 1) + ",\"_meta\":{\"redactedAttributes\":[\"/\\\\/a\"]}}");
+  }
+
+  @Test(expected = JsonIOException.class)
+  public void invalidContextCannotBeSerialized() {
+    new RedactingContextSerializer(false, null).serialize(LDContext.create(""));
+  }
+
+  private static List<AttributeRef> refs(String... paths) {
+    List<AttributeRef> ret = new ArrayList<>();
+    for (String p: asList(paths)) {
+      ret.add(AttributeRef.fromPath(p));
+    }
+    return ret;
+  }
+
+  private static LDValue sortRedactedAttributes(LDValue value) {
+    if (value.getType() != LDValueType.OBJECT) {
+      return value;
+    }
+    ObjectBuilder ob = LDValue.buildObject();
+    for (String k: value.keys()) {
+      LDValue v = value.get(k);
+      if (k.equals("redactedAttributes")) {
+        List<String> names = new ArrayList<>();
+        for (String name: v.valuesAs(LDValue.Convert.String)) {
+          names.add(name);
+        }
+        Collections.sort(names);
+        v = LDValue.Convert.String.arrayFrom(names);
+      }
+      ob.put(k, sortRedactedAttributes(v));
+    }
+    return ob.build();
+  }
+
+  private static void verify(RedactingContextSerializer s, LDContext c, String expectedJson) {
+    // Attribute order is not significant, either in the context or in redactedAttributes, so compare
+    // the parsed JSON with redactedAttributes sorted, but also make sure that the output is
+    // byte-for-byte the same on both output paths.
+    String json = s.serialize(c);
+    assertThat(sortRedactedAttributes(LDValue.parse(json)),
+        equalTo(sortRedactedAttributes(LDValue.parse(expectedJson))));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      s.serializeTo(c, out);
+      assertThat(new String(out.toByteArray(), "UTF-8"), equalTo(json));
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
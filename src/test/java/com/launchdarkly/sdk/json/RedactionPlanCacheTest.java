@@ -0,0 +1,86 @@
+package com.launchdarkly.sdk.json;
+
+import com.launchdarkly.sdk.AttributeRef;
+import com.launchdarkly.sdk.BaseTest;
+import com.launchdarkly.sdk.LDContext;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+@SuppressWarnings("javadoc")
+public class RedactionPlanCacheTest extends BaseTest {
+  @Test
+  public void contextsWithNoPrivateAttributesShareGlobalPlanWithoutLookup() {
+    RedactionPlanCache cache = new RedactionPlanCache(asList(AttributeRef.fromLiteral("email")), 16);
+    RedactionPlan p1 = cache.planFor(LDContext.create("a"));
+    RedactionPlan p2 = cache.planFor(LDContext.create("b"));
+    assertThat(p2, sameInstance(p1));
+    assertThat(p1.trie().child("email").redactedRef(), equalTo("email"));
+  }
+
+  @Test
+  public void noPrivateAttributesAtAllMeansNoTrie() {
+    RedactionPlanCache cache = new RedactionPlanCache(Collections.<AttributeRef>emptyList(), 16);
+    assertThat(cache.planFor(LDContext.create("a")).trie(), nullValue());
+  }
+
+  @Test
+  public void planIsReusedForContextsWithEqualPrivateAttributes() {
+    RedactionPlanCache cache = new RedactionPlanCache(Collections.<AttributeRef>emptyList(), 16);
+    RedactionPlan p1 = cache.planFor(LDContext.builder("a").privateAttributes("email", "/address/street").build());
+    RedactionPlan p2 = cache.planFor(LDContext.builder("b").privateAttributes("email", "/address/street").build());
+    assertThat(p2, sameInstance(p1));
+
+    RedactionPlan p3 = cache.planFor(LDContext.builder("c").privateAttributes("email").build());
+    assertThat(p3, not(sameInstance(p1)));
+    assertThat(p3.trie().child("address"), nullValue());
+  }
+
+  @Test
+  public void collidingEntryIsReplaced() {
+    RedactionPlanCache cache = new RedactionPlanCache(Collections.<AttributeRef>emptyList(), 1);
+    LDContext c1 = LDContext.builder("a").privateAttributes("x").build();
+    LDContext c2 = LDContext.builder("a").privateAttributes("y").build();
+    RedactionPlan p1 = cache.planFor(c1);
+    RedactionPlan p2 = cache.planFor(c2);
+    assertThat(p2, not(sameInstance(p1)));
+    RedactionPlan p1Again = cache.planFor(c1);
+    assertThat(p1Again, not(sameInstance(p1)));
+    assertThat(cache.planFor(c1), sameInstance(p1Again));
+  }
+
+  @Test
+  public void planCombinesGlobalAndContextAttributes() {
+    RedactionPlanCache cache = new RedactionPlanCache(asList(AttributeRef.fromPath("/address/street"),
+        AttributeRef.fromPath("/email")), 16);
+    RedactionPlan p = cache.planFor(LDContext.builder("a").privateAttributes("email", "/address/city").build());
+    assertThat(p.trie().child("address").child("street").redactedRef(), equalTo("/address/street"));
+    assertThat(p.trie().child("address").child("city").redactedRef(), equalTo("/address/city"));
+    // if both refer to the same attribute, it is reported the way the global one was written
+    assertThat(p.trie().child("email").redactedRef(), equalTo("/email"));
+  }
+
+  @Test
+  public void cacheCountsHitsAndMisses() {
+    RedactionPlanCache cache = new RedactionPlanCache(Collections.<AttributeRef>emptyList(), 16);
+    cache.planFor(LDContext.create("a")); // no lookup for a context without private attributes
+    cache.planFor(LDContext.builder("a").privateAttributes("email").build());
+    cache.planFor(LDContext.builder("b").privateAttributes("email").build());
+    cache.planFor(LDContext.builder("c").privateAttributes("name").build());
+    assertThat(cache.getHits(), equalTo(1L));
+    assertThat(cache.getMisses(), equalTo(2L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sizeMustBePowerOfTwo() {
+    new RedactionPlanCache(Collections.<AttributeRef>emptyList(), 3);
+  }
+}